@@ -10,18 +10,28 @@ import dev.dejvokep.boostedyaml.settings.updater.UpdaterSettings;
 import me.rrs.headdrop.commands.Head;
 import me.rrs.headdrop.commands.MainCommand;
 import me.rrs.headdrop.database.Database;
+import me.rrs.headdrop.database.DropJournal;
+import me.rrs.headdrop.database.EntityHead;
+import me.rrs.headdrop.database.KillCounter;
+import me.rrs.headdrop.database.LeaderboardIndex;
+import me.rrs.headdrop.database.RetentionJob;
+import me.rrs.headdrop.database.ScoreCache;
+import me.rrs.headdrop.drop.DropSettings;
+import me.rrs.headdrop.drop.PermissionChanceCache;
 import me.rrs.headdrop.hook.GeyserMC;
 import me.rrs.headdrop.hook.HeadDropExpansion;
+import me.rrs.headdrop.hook.LuckPermsHook;
+import me.rrs.headdrop.hook.ProtectionManager;
 import me.rrs.headdrop.hook.WorldGuardSupport;
 import me.rrs.headdrop.listener.EntityDeath;
 import me.rrs.headdrop.listener.HeadGUI;
+import me.rrs.headdrop.util.TaskScheduler;
 import me.rrs.headdrop.util.UpdateAPI;
 import org.bstats.bukkit.Metrics;
 import org.bstats.charts.SimplePie;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.PluginManager;
 import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.geysermc.geyser.api.GeyserApi;
 import org.geysermc.geyser.api.event.lifecycle.GeyserDefineCustomSkullsEvent;
 
@@ -48,6 +58,14 @@ public class HeadDrop extends JavaPlugin {
     // 核心组件
     private Database database;
     public Database getDatabase() { return database; }
+    private final ScoreCache scoreCache = new ScoreCache();
+    public ScoreCache getScoreCache() { return scoreCache; }
+    private final LeaderboardIndex leaderboard = new LeaderboardIndex();
+    public LeaderboardIndex getLeaderboard() { return leaderboard; }
+    private final KillCounter killCounter = new KillCounter();
+    public KillCounter getKillCounter() { return killCounter; }
+    private WorldGuardSupport worldGuardSupport;
+    private RetentionJob retentionJob;
 
     /**
      * 插件加载时执行
@@ -66,6 +84,7 @@ public class HeadDrop extends JavaPlugin {
     @Override
     public void onEnable() {
         displayStartupMessage();
+        reloadSettings();
         setupMetrics();
         registerComponents();
         startUpdateChecker();
@@ -78,7 +97,16 @@ public class HeadDrop extends JavaPlugin {
      */
     @Override
     public void onDisable() {
+        if (database != null && config.getBoolean("Database.Enable")) {
+            if (retentionJob != null) retentionJob.stop();
+            scoreCache.shutdown();
+            killCounter.shutdown();
+        }
+        TaskScheduler.cancelAll();
         stopWebServer();
+        if (database != null) {
+            database.close();
+        }
         logInfo("插件已禁用");
     }
 
@@ -121,14 +149,23 @@ public class HeadDrop extends JavaPlugin {
         );
     }
 
+    /**
+     * 重新编译由配置派生的运行时快照
+     * 在插件启用和配置重载后调用
+     */
+    public void reloadSettings() {
+        DropSettings.reload(config);
+        PermissionChanceCache.getInstance().invalidateAll();
+        EntityHead.invalidateTemplates();
+        ProtectionManager.getInstance().invalidateAll();
+    }
+
     /**
      * 设置数据库
      */
     private void setupDatabase() {
         database = new Database();
-        database.setupDataSource();
-        database.createTable();
-        database.cleanupOldData(config.getInt("Database.Cleanup", 30));
+        database.initializeAsync();
     }
 
     /**
@@ -136,7 +173,7 @@ public class HeadDrop extends JavaPlugin {
      */
     private void initializeWorldGuardSupport() {
         try {
-            new WorldGuardSupport();
+            worldGuardSupport = new WorldGuardSupport();
         } catch (NoClassDefFoundError ignored) {
             // WorldGuard未安装，忽略错误
         }
@@ -151,6 +188,8 @@ public class HeadDrop extends JavaPlugin {
         registerCommands();
         registerPlaceholderAPI();
         registerGeyserHook();
+        registerLuckPermsHook();
+        registerProtectionProviders();
     }
 
     /**
@@ -160,6 +199,24 @@ public class HeadDrop extends JavaPlugin {
         PluginManager pm = getServer().getPluginManager();
         pm.registerEvents(new EntityDeath(), this);
         pm.registerEvents(new HeadGUI.GUIListener(), this);
+        pm.registerEvents(PermissionChanceCache.getInstance(), this);
+        pm.registerEvents(ProtectionManager.getInstance(), this);
+        if (config.getBoolean("Database.Enable")) {
+            database.getExecutor().execute(() -> leaderboard.load(database));
+            pm.registerEvents(scoreCache, this);
+            DropJournal journal = config.getBoolean("Database.Journal", true)
+                    ? new DropJournal(new File(getDataFolder(), "journal"), config.getLong("Database.Journal-Sync-Interval", 200L))
+                    : null;
+            scoreCache.start(config.getInt("Database.Flush-Interval", 10), journal);
+            killCounter.start(config.getInt("Database.Flush-Interval", 10));
+            retentionJob = new RetentionJob(database, config.getInt("Database.Cleanup", 30),
+                    config.getInt("Database.Cleanup-Rows-Per-Second", 200),
+                    config.getInt("Database.Cleanup-Chunk-Size", 50));
+            retentionJob.start();
+            // 每小时清理一次过期的时间桶
+            TaskScheduler.runAsyncTimer(() -> database.getExecutor().execute("bucket-prune", database::pruneBuckets),
+                    20L * 60, 20L * 60 * 60);
+        }
     }
 
     /**
@@ -194,6 +251,25 @@ public class HeadDrop extends JavaPlugin {
         }
     }
 
+    /**
+     * 注册LuckPerms挂钩
+     */
+    private void registerLuckPermsHook() {
+        if (Bukkit.getPluginManager().isPluginEnabled("LuckPerms")) {
+            new LuckPermsHook();
+            logInfo("已挂钩到 LuckPerms！");
+        }
+    }
+
+    /**
+     * 注册领地保护提供者
+     */
+    private void registerProtectionProviders() {
+        if (worldGuardSupport != null && Bukkit.getPluginManager().isPluginEnabled("WorldGuard")) {
+            ProtectionManager.getInstance().register(worldGuardSupport);
+        }
+    }
+
     // region Web服务器
     /**
      * 启动Web服务器
@@ -230,15 +306,7 @@ public class HeadDrop extends JavaPlugin {
      * 启动更新检查器
      */
     private void startUpdateChecker() {
-        if (isFolia()) {
-            checkForUpdates();
-            return;
-        }
-
-        new BukkitRunnable() {
-            @Override
-            public void run() { checkForUpdates(); }
-        }.runTaskTimerAsynchronously(this, 0L, 20L * 60L * 30L);
+        TaskScheduler.runAsyncTimer(this::checkForUpdates, 0L, 20L * 60L * 30L);
     }
 
     /**
@@ -307,12 +375,7 @@ public class HeadDrop extends JavaPlugin {
      * @return 是否为Folia
      */
     public boolean isFolia() {
-        try {
-            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
-            return true;
-        } catch (ClassNotFoundException e) {
-            return false;
-        }
+        return TaskScheduler.isFolia();
     }
 
     /**
@@ -3,15 +3,15 @@ package me.rrs.headdrop;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
+import me.rrs.headdrop.database.Database;
+import me.rrs.headdrop.database.LeaderboardEntry;
+import me.rrs.headdrop.database.LeaderboardIndex;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.util.*;
 
-import java.util.Map.Entry;
-import java.util.stream.Collectors;
-
 /**
  * 网站控制器类
  * 处理排行榜网站的HTTP请求和响应
@@ -51,26 +51,28 @@ public class WebsiteController {
 
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            List<Entry<String, Integer>> sortedPlayerData = getSortedPlayerData();
-
             int page = getRequestedPage(exchange.getRequestURI().getQuery());
             int startIndex = (page - 1) * ENTRIES_PER_PAGE;
-            int endIndex = Math.min(startIndex + ENTRIES_PER_PAGE, sortedPlayerData.size());
 
-            String response = generateHtmlResponse(sortedPlayerData, startIndex, endIndex, page);
-            sendResponse(exchange, response);
-        }
+            // 优先读取内存排行榜，加载完成前只向数据库查询当前页
+            LeaderboardIndex index = HeadDrop.getInstance().getLeaderboard();
+            List<LeaderboardEntry> pageEntries;
+            int totalEntries;
+            if (index.isReady()) {
+                pageEntries = index.getTop(ENTRIES_PER_PAGE, startIndex);
+                totalEntries = index.size();
+            } else if (HeadDrop.getInstance().getDatabase().isReady()) {
+                Database database = HeadDrop.getInstance().getDatabase();
+                pageEntries = database.getTop(ENTRIES_PER_PAGE, startIndex);
+                totalEntries = database.getPlayerCount();
+            } else {
+                // 数据库仍在连接，显示空排行榜
+                pageEntries = Collections.emptyList();
+                totalEntries = 0;
+            }
 
-        /**
-         * 获取排序后的玩家数据
-         * @return 排序后的玩家数据列表
-         */
-        private List<Entry<String, Integer>> getSortedPlayerData() {
-            Map<String, Integer> playerData = HeadDrop.getInstance().getDatabase().getPlayerData();
-            return playerData.entrySet()
-                    .stream()
-                    .sorted(Entry.comparingByValue(Comparator.reverseOrder()))
-                    .collect(Collectors.toList());
+            String response = generateHtmlResponse(pageEntries, totalEntries, startIndex, page);
+            sendResponse(exchange, response);
         }
 
         /**
@@ -93,13 +95,13 @@ public class WebsiteController {
 
         /**
          * 生成HTML响应
-         * @param sortedPlayerData 排序后的玩家数据
-         * @param startIndex 开始索引
-         * @param endIndex 结束索引
+         * @param pageEntries 当前页的玩家数据
+         * @param totalEntries 总条目数
+         * @param startIndex 当前页第一条的索引
          * @param page 当前页码
          * @return HTML响应字符串
          */
-        private String generateHtmlResponse(List<Entry<String, Integer>> sortedPlayerData, int startIndex, int endIndex, int page) {
+        private String generateHtmlResponse(List<LeaderboardEntry> pageEntries, int totalEntries, int startIndex, int page) {
             return "<!DOCTYPE html>" +
                     "<html lang=\"zh-CN\">\n<head>\n<title>头颅收集排行榜</title>\n" +
                     "<meta charset=\"UTF-8\">\n" +
@@ -114,8 +116,8 @@ public class WebsiteController {
                     "<p class=\"subtitle\">展示服务器中最出色的头颅猎人们</p>\n" +
                     "</header>\n" +
                     "<button id=\"theme-toggle\" onclick=\"toggleTheme()\" title=\"切换主题\">🌙</button>\n" +
-                    generateTable(sortedPlayerData, startIndex, endIndex) +
-                    generatePaginationLinks(sortedPlayerData.size(), page) +
+                    generateTable(pageEntries, startIndex) +
+                    generatePaginationLinks(totalEntries, page) +
                     "<footer>\n" +
                     "<p class=\"footer-text\">数据更新于: " + new Date() + "</p>\n" +
                     "</footer>\n" +
@@ -339,22 +341,22 @@ public class WebsiteController {
 
         /**
          * 生成表格HTML
-         * @param sortedPlayerData 排序后的玩家数据
-         * @param startIndex 开始索引
-         * @param endIndex 结束索引
+         * @param pageEntries 当前页的玩家数据
+         * @param startIndex 当前页第一条的索引
          * @return 表格HTML字符串
          */
-        private String generateTable(List<Entry<String, Integer>> sortedPlayerData, int startIndex, int endIndex) {
+        private String generateTable(List<LeaderboardEntry> pageEntries, int startIndex) {
             StringBuilder tableHtml = new StringBuilder();
             tableHtml.append("<table>\n<tr>\n<th>排名</th>\n<th>玩家名称</th>\n<th>收集数量</th>\n</tr>\n");
 
-            for (int i = startIndex; i < endIndex; i++) {
-                Entry<String, Integer> entry = sortedPlayerData.get(i);
-                String rankClass = getRankClass(i + 1);
+            for (int i = 0; i < pageEntries.size(); i++) {
+                LeaderboardEntry entry = pageEntries.get(i);
+                int rank = startIndex + i + 1;
+                String rankClass = getRankClass(rank);
                 tableHtml.append("<tr>\n")
-                         .append("<td class=\"").append(rankClass).append("\">").append(i + 1).append("</td>\n")
-                         .append("<td>").append(escapeHtml(entry.getKey())).append("</td>\n")
-                         .append("<td><strong>").append(entry.getValue()).append(" 个</strong></td>\n")
+                         .append("<td class=\"").append(rankClass).append("\">").append(rank).append("</td>\n")
+                         .append("<td>").append(escapeHtml(entry.name())).append("</td>\n")
+                         .append("<td><strong>").append(entry.score()).append(" 个</strong></td>\n")
                          .append("</tr>\n");
             }
             tableHtml.append("</table>\n");
@@ -0,0 +1,86 @@
+package me.rrs.headdrop.api;
+
+import me.rrs.headdrop.drop.DropPolicy;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * 掉落上下文
+ * 携带一次掉落判定中已经计算好的击杀者、武器、几率加成和掉落策略，
+ * 处理器直接读取，无需重新计算。
+ * 非 Folia 服务端上该对象会被复用，处理器不应在调用结束后保留引用。
+ */
+public final class DropContext {
+
+    private Player killer;
+    private ItemStack weapon;
+    private double lootBonus;
+    private DropPolicy policy;
+    private long startNanos;
+    private boolean inUse;
+
+    /**
+     * 填充上下文
+     *
+     * @param killer 击杀者（可为null）
+     * @param weapon 击杀者主手物品（可为null）
+     * @param lootBonus 抢夺与权限带来的几率加成
+     * @param policy 实体的掉落策略
+     * @return 当前上下文
+     */
+    public DropContext set(Player killer, ItemStack weapon, double lootBonus, DropPolicy policy) {
+        this.killer = killer;
+        this.weapon = weapon;
+        this.lootBonus = lootBonus;
+        this.policy = policy;
+        this.startNanos = System.nanoTime();
+        this.inUse = true;
+        return this;
+    }
+
+    /**
+     * 清空上下文，释放对玩家和物品的引用
+     */
+    public void clear() {
+        this.killer = null;
+        this.weapon = null;
+        this.lootBonus = 0;
+        this.policy = null;
+        this.startNanos = 0L;
+        this.inUse = false;
+    }
+
+    /**
+     * 上下文是否正在被使用（用于检测嵌套的死亡事件）
+     *
+     * @return 是否正在使用
+     */
+    public boolean isInUse() {
+        return inUse;
+    }
+
+    public Player getKiller() {
+        return killer;
+    }
+
+    public ItemStack getWeapon() {
+        return weapon;
+    }
+
+    public double getLootBonus() {
+        return lootBonus;
+    }
+
+    public DropPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * 获取从开始判定到现在经过的时间
+     *
+     * @return 纳秒
+     */
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+}
@@ -0,0 +1,19 @@
+package me.rrs.headdrop.api;
+
+import org.bukkit.event.entity.EntityDeathEvent;
+
+/**
+ * 头颅掉落处理器
+ * 在实体死亡且通过掉落条件检查后调用。
+ */
+@FunctionalInterface
+public interface DropHandler {
+
+    /**
+     * 处理掉落
+     *
+     * @param event 死亡事件
+     * @param context 本次掉落的上下文，仅在调用期间有效，不要保存引用
+     */
+    void handle(EntityDeathEvent event, DropContext context);
+}
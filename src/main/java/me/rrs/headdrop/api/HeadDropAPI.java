@@ -1,21 +1,28 @@
 package me.rrs.headdrop.api;
 
+import me.rrs.headdrop.HeadDrop;
+import me.rrs.headdrop.database.Database;
+import me.rrs.headdrop.database.KillCount;
+import me.rrs.headdrop.hook.ProtectionManager;
+import me.rrs.headdrop.hook.ProtectionProvider;
 import me.rrs.headdrop.listener.EntityDeath;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
-import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.util.Consumer;
 
-import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 public class HeadDropAPI {
-    private static final Map<EntityType, DropConfiguration> customDrops = new EnumMap<>(EntityType.class);
-    private static EntityDeath entityDeathInstance;
+    private static final Map<EntityType, DropConfiguration> customDrops = new ConcurrentHashMap<>();
+    private static volatile EntityDeath entityDeathInstance;
 
     // Addon developer facing methods
     public static void registerEntityDrop(EntityType entityType, float baseDropChance,
@@ -50,6 +57,53 @@ public class HeadDropAPI {
         }
     }
 
+    public static void registerProtectionProvider(ProtectionProvider provider) {
+        ProtectionManager.getInstance().register(provider);
+    }
+
+    public static void unregisterProtectionProvider(ProtectionProvider provider) {
+        ProtectionManager.getInstance().unregister(provider);
+    }
+
+    // Call after a claim/region change so cached section decisions are recomputed
+    public static void invalidateProtectionCache() {
+        ProtectionManager.getInstance().invalidateAll();
+    }
+
+    // Per-entity statistics, completed on the database thread
+    public static CompletableFuture<List<KillCount>> getEntityLeaderboard(EntityType entityType, int limit) {
+        return queryDatabase(database -> database.getTopByEntity(entityType.name(), limit, 0));
+    }
+
+    public static CompletableFuture<Map<String, Long>> getPlayerKills(UUID player) {
+        return queryDatabase(database -> database.getKillsByPlayer(player));
+    }
+
+    public static CompletableFuture<Long> getTotalKills(EntityType entityType) {
+        return queryDatabase(database -> database.getTotalKills(entityType.name()));
+    }
+
+    private static <T> CompletableFuture<T> queryDatabase(Function<Database, T> query) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Database database = HeadDrop.getInstance().getDatabase();
+        if (database == null) {
+            future.completeExceptionally(new IllegalStateException("Database is not enabled"));
+            return future;
+        }
+        // API 可能在主线程或区域线程调用，队列已满时立即失败而不是等待
+        boolean accepted = database.getExecutor().tryExecute(() -> {
+            try {
+                future.complete(query.apply(database));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        if (!accepted) {
+            future.completeExceptionally(new IllegalStateException("Database queue is full"));
+        }
+        return future;
+    }
+
     // Internal integration
     public static void integrateWithEntityDeath(EntityDeath entityDeath) {
         entityDeathInstance = entityDeath;
@@ -58,13 +112,13 @@ public class HeadDropAPI {
         }
     }
 
-    private static Consumer<EntityDeathEvent> createHandler(DropConfiguration config) {
-        return event -> {
-            float totalChance = Math.min(config.baseChance + getCurrentLootBonus(), 100.0F);
+    private static DropHandler createHandler(DropConfiguration config) {
+        return (event, context) -> {
+            float totalChance = Math.min(config.baseChance + (float) context.getLootBonus(), 100.0F);
             if (ThreadLocalRandom.current().nextFloat() * 100.0F > totalChance) return;
 
             ItemStack headItem = config.itemSupplier.get();
-            Player killer = event.getEntity().getKiller();
+            Player killer = context.getKiller();
 
             HeadDropEvent headDropEvent = new HeadDropEvent(killer, event.getEntity(), headItem);
             Bukkit.getPluginManager().callEvent(headDropEvent);
@@ -72,17 +126,12 @@ public class HeadDropAPI {
             if (!headDropEvent.isCancelled()) {
                 event.getDrops().add(headItem);
                 if (killer != null && entityDeathInstance != null) {
-                    entityDeathInstance.awardPoints(killer, config.points);
+                    entityDeathInstance.awardPoints(killer, event.getEntityType(), config.points);
                 }
             }
         };
     }
 
-    private static float getCurrentLootBonus() {
-        return entityDeathInstance != null ?
-                (float) entityDeathInstance.getCurrentLootBonus() : 0;
-    }
-
     private record DropConfiguration(float baseChance, Supplier<ItemStack> itemSupplier, int points) {
         DropConfiguration withBaseChance(float newChance) {
             return new DropConfiguration(newChance, itemSupplier, points);
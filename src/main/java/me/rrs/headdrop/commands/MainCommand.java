@@ -1,6 +1,13 @@
 package me.rrs.headdrop.commands;
 
 import me.rrs.headdrop.HeadDrop;
+import me.rrs.headdrop.database.Database;
+import me.rrs.headdrop.database.DatabaseExecutor;
+import me.rrs.headdrop.database.LeaderboardEntry;
+import me.rrs.headdrop.database.LeaderboardIndex;
+import me.rrs.headdrop.database.TimeWindow;
+import me.rrs.headdrop.drop.DropSettings;
+import me.rrs.headdrop.drop.ServerCapabilities;
 import me.rrs.headdrop.listener.HeadGUI;
 import me.rrs.headdrop.util.Lang;
 import net.kyori.adventure.text.Component;
@@ -12,6 +19,7 @@ import org.bukkit.entity.Player;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.time.LocalDate;
 import java.util.*;
 
 public class MainCommand implements CommandExecutor, TabCompleter {
@@ -35,7 +43,7 @@ public class MainCommand implements CommandExecutor, TabCompleter {
                     break;
                 case "leaderboard":
                 case "排行榜":
-                    showLeaderboard(sender);
+                    showLeaderboard(sender, args.length > 1 ? TimeWindow.parse(args[1]) : null);
                     break;
                 case "debug":
                 case "调试":
@@ -59,7 +67,7 @@ public class MainCommand implements CommandExecutor, TabCompleter {
             
             <aqua>> </aqua><light_purple>/headdrop reload</light_purple> <reset>-> 重载插件配置
             
-            <aqua>> </aqua><light_purple>/headdrop leaderboard</light_purple> <reset>-> 显示头颅收集排行榜
+            <aqua>> </aqua><light_purple>/headdrop leaderboard [day|week|month]</light_purple> <reset>-> 显示头颅收集排行榜
             
             <aqua>> </aqua><light_purple>/headdrop gui</light_purple> <reset>-> 打开头颅界面
             
@@ -78,6 +86,7 @@ public class MainCommand implements CommandExecutor, TabCompleter {
                 try {
                     HeadDrop.getInstance().getLang().reload();
                     HeadDrop.getInstance().getConfiguration().reload();
+                    HeadDrop.getInstance().reloadSettings();
                     Component message = miniMessage.deserialize("<green>[头颅掉落]</green> <reset>配置重载成功！");
                     sender.sendMessage(message);
                 } catch (IOException e) {
@@ -90,6 +99,7 @@ public class MainCommand implements CommandExecutor, TabCompleter {
             try {
                 HeadDrop.getInstance().getConfiguration().reload();
                 HeadDrop.getInstance().getLang().reload();
+                HeadDrop.getInstance().reloadSettings();
                 Bukkit.getLogger().info(HeadDrop.getInstance().getLang().getString("Reload"));
             } catch (IOException e) {
                 e.printStackTrace();
@@ -97,7 +107,7 @@ public class MainCommand implements CommandExecutor, TabCompleter {
         }
     }
 
-    private void showLeaderboard(CommandSender sender) {
+    private void showLeaderboard(CommandSender sender, TimeWindow window) {
         if (!sender.hasPermission("headdrop.view.leaderboard")){
             return;
         }
@@ -106,22 +116,71 @@ public class MainCommand implements CommandExecutor, TabCompleter {
             if (sender instanceof Player) sender.sendMessage("[头颅掉落] 这是一个错误，请向管理员报告！");
             return;
         }
-        Map<String, Integer> playerData = HeadDrop.getInstance().getDatabase().getPlayerData();
-        List<Map.Entry<String, Integer>> sortedData = new ArrayList<>(playerData.entrySet());
-        sortedData.sort(Map.Entry.comparingByValue(Comparator.reverseOrder()));
+        if (!HeadDrop.getInstance().getDatabase().isReady()) {
+            sender.sendMessage(miniMessage.deserialize("<yellow>[头颅掉落] 数据库正在连接，请稍后再试</yellow>"));
+            return;
+        }
+        // 数据库查询不在命令线程（Folia 上为区域线程）执行，队列已满时不等待
+        Runnable query = window != null ? () -> sendWindowLeaderboard(sender, window) : () -> sendLeaderboard(sender);
+        if (!HeadDrop.getInstance().getDatabase().getExecutor().tryExecute(query)) {
+            sender.sendMessage(miniMessage.deserialize("<yellow>[头颅掉落] 数据库繁忙，请稍后再试</yellow>"));
+        }
+    }
+
+    private void sendWindowLeaderboard(CommandSender sender, TimeWindow window) {
+        List<LeaderboardEntry> top = HeadDrop.getInstance().getDatabase().getWindowTop(window, LocalDate.now(), 10, 0);
+        sender.sendMessage(miniMessage.deserialize("<gold><bold>=-=-= %s头颅排行榜 =-=-=</bold></gold>".formatted(window.getDisplayName())));
+        sender.sendMessage(miniMessage.deserialize("<gray>----------------------------</gray>"));
+
+        for (int i = 0; i < top.size(); i++) {
+            LeaderboardEntry entry = top.get(i);
+            sender.sendMessage(miniMessage.deserialize("""
+             <aqua>#%d</aqua> <yellow>%s</yellow> - <green>%d</green> <gold>个头颅</gold>
+            """.formatted(i + 1, entry.name(), entry.score())));
+        }
+
+        sender.sendMessage(miniMessage.deserialize("<gray>----------------------------</gray>"));
+    }
+
+    private void sendLeaderboard(CommandSender sender) {
+        // 内存排行榜加载完成前回退到数据库查询
+        LeaderboardIndex index = HeadDrop.getInstance().getLeaderboard();
+        Database database = HeadDrop.getInstance().getDatabase();
+        List<LeaderboardEntry> top = index.isReady() ? index.getTop(10, 0) : database.getTop(10, 0);
         sender.sendMessage(miniMessage.deserialize("<gold><bold>=-=-= 头颅收集排行榜 =-=-=</bold></gold>"));
         sender.sendMessage(miniMessage.deserialize("<gray>----------------------------</gray>"));
 
-        for (int i = 0; i < Math.min(sortedData.size(), 10); i++) {
-            Map.Entry<String, Integer> entry = sortedData.get(i);
+        for (int i = 0; i < top.size(); i++) {
+            LeaderboardEntry entry = top.get(i);
             Component message = miniMessage.deserialize("""
              <aqua>#%d</aqua> <yellow>%s</yellow> - <green>%d</green> <gold>个头颅</gold>
-            """.formatted(i + 1, entry.getKey(), entry.getValue()));
+            """.formatted(i + 1, entry.name(), entry.score()));
             sender.sendMessage(message);
         }
 
         sender.sendMessage(miniMessage.deserialize("<gray>----------------------------</gray>"));
 
+        if (sender instanceof Player player) {
+            UUID uuid = player.getUniqueId();
+            int rank = index.isReady() ? index.getRank(uuid) : database.getRank(uuid);
+            if (rank > 0) {
+                sender.sendMessage(miniMessage.deserialize("<gray>你的排名: <aqua>#%d</aqua></gray>".formatted(rank)));
+            }
+
+            // 不在前十名时显示前后各一名
+            int position = index.isReady() ? index.getPosition(uuid) : -1;
+            if (position >= 10) {
+                List<LeaderboardEntry> around = index.getAround(uuid, 1);
+                int first = position - 1;
+                for (int i = 0; i < around.size(); i++) {
+                    LeaderboardEntry entry = around.get(i);
+                    sender.sendMessage(miniMessage.deserialize("""
+                     <gray>#%d</gray> <yellow>%s</yellow> - <green>%d</green> <gold>个头颅</gold>
+                    """.formatted(first + i + 1, entry.name(), entry.score())));
+                }
+            }
+        }
+
     }
 
     private void generateDebugFile(CommandSender sender) {
@@ -145,15 +204,45 @@ public class MainCommand implements CommandExecutor, TabCompleter {
                     writer.write("启用抢夺附魔: " + HeadDrop.getInstance().getConfiguration().getBoolean("Config.Enable-Looting") + "\n");
                     writer.write("启用权限几率: " + HeadDrop.getInstance().getConfiguration().getBoolean("Config.Enable-Perm-Chance") + "\n");
                     writer.write("数据库: " + HeadDrop.getInstance().getConfiguration().getBoolean("Database.Online") + "\n");
+                    writer.write("数据库引擎: " + HeadDrop.getInstance().getDatabase().getEngineName() + "\n");
+                    writer.write("数据库状态: " + HeadDrop.getInstance().getDatabase().getState()
+                            + "（初始化耗时 " + HeadDrop.getInstance().getDatabase().getInitializationMillis() + "ms）\n");
                     writer.write("高级版: " + "True" + "\n");
+                    writer.write("\n");
+                    writer.write("功能检测:\n");
+                    for (Map.Entry<ServerCapabilities.Capability, Boolean> entry : ServerCapabilities.get().getDetected().entrySet()) {
+                        writer.write("  " + entry.getKey().getDisplayName() + " (" + entry.getKey().name() + "): "
+                                + (entry.getValue() ? "可用" : "不可用") + "\n");
+                    }
+                    writer.write("\n");
+                    DatabaseExecutor.Metrics metrics = HeadDrop.getInstance().getDatabase().getExecutor().getMetrics();
+                    writer.write("数据库队列: 长度 " + metrics.queueDepth()
+                            + ", 完成 " + metrics.completed() + ", 失败 " + metrics.failed()
+                            + ", 拒绝 " + metrics.rejected() + ", 丢弃 " + metrics.dropped() + ", 合并 " + metrics.merged() + "\n");
+                    writer.write("数据库耗时: 平均等待 " + String.format("%.2f", metrics.averageWaitMillis())
+                            + "ms, 最长等待 " + String.format("%.2f", metrics.maxWaitMillis())
+                            + "ms, 平均执行 " + String.format("%.2f", metrics.averageExecutionMillis()) + "ms\n");
+                    writer.write("\n");
+                    writer.write("几率规则命中次数:\n");
+                    for (Map.Entry<String, Long> entry : DropSettings.current().getChanceRules().getHitCounts().entrySet()) {
+                        writer.write("  " + entry.getKey() + ": " + entry.getValue() + "\n");
+                    }
                 }
                 Bukkit.getLogger().info("[头颅掉落-调试] debug.txt 文件已创建！");
+                Bukkit.getLogger().info("[头颅掉落-调试] 功能检测: " + describeCapabilities());
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
     }
 
+    private String describeCapabilities() {
+        StringJoiner joiner = new StringJoiner(", ");
+        ServerCapabilities.get().getDetected().forEach((capability, available) ->
+                joiner.add(capability.name() + "=" + (available ? "是" : "否")));
+        return joiner.toString();
+    }
+
     private void openGUI(CommandSender sender) {
         if (sender instanceof Player player) {
             if (player.hasPermission("headdrop.gui.view")) {
@@ -170,6 +259,10 @@ public class MainCommand implements CommandExecutor, TabCompleter {
         if (cmd.getName().equals("headdrop") && args.length == 1) {
             return Arrays.asList("help", "帮助", "reload", "重载", "leaderboard", "排行榜", "gui", "界面");
         }
+        if (cmd.getName().equals("headdrop") && args.length == 2
+                && (args[0].equalsIgnoreCase("leaderboard") || args[0].equals("排行榜"))) {
+            return Arrays.asList("day", "week", "month");
+        }
         return Collections.emptyList();
     }
 }
\ No newline at end of file
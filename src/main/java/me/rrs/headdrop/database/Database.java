@@ -1,256 +1,389 @@
 package me.rrs.headdrop.database;
 
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
 import dev.dejvokep.boostedyaml.YamlDocument;
 import me.rrs.headdrop.HeadDrop;
 import org.bukkit.Bukkit;
 
 import java.io.File;
-import java.sql.*;
+import java.time.LocalDate;
 import java.util.*;
 
 public class Database {
 
-    private final YamlDocument config = HeadDrop.getInstance().getConfiguration();
-    private boolean isSQLite;
-    private HikariDataSource dataSource;
+    /**
+     * 数据库初始化状态
+     */
+    public enum State {
+        CONNECTING,
+        READY,
+        FAILED
+    }
 
+    private final YamlDocument config = HeadDrop.getInstance().getConfiguration();
+    private volatile StorageEngine engine;
+    private final DatabaseExecutor executor;
+    private volatile State state = State.CONNECTING;
+    private volatile long initializationMillis = -1;
+    private volatile boolean closed;
 
-    private String getCurrentTimestampFunction() {
-        return isSQLite ? "datetime('now')" : "NOW()";
+    public Database() {
+        // 执行器先于存储引擎创建，就绪前提交的任务在队列中等待
+        this.executor = new DatabaseExecutor(
+                Math.min(getPoolSize(), config.getInt("Database.Threads", 2)),
+                config.getInt("Database.Queue-Size", 1000),
+                DatabaseExecutor.OverflowPolicy.parse(config.getString("Database.Overflow-Policy", "BLOCK")),
+                config.getLong("Database.Block-Timeout", 100L));
     }
 
-    public void createTable() {
-        String createTableSQL;
-        if (isSQLite) {
-            createTableSQL = "CREATE TABLE IF NOT EXISTS headdrop ("
-                    + "name TEXT, "
-                    + "uuid TEXT, "
-                    + "data INTEGER, "
-                    + "last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
-                    + "PRIMARY KEY (name, uuid)"
-                    + ");";
-        } else {
-            createTableSQL = "CREATE TABLE IF NOT EXISTS headdrop ("
-                    + "name VARCHAR(16), "
-                    + "uuid VARCHAR(36), "
-                    + "data INT, "
-                    + "last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP, "
-                    + "PRIMARY KEY (name, uuid)"
-                    + ");";
-        }
+    /**
+     * 在后台线程中打开存储引擎并执行迁移，服务器启动不等待数据库
+     */
+    public void initializeAsync() {
+        Thread thread = new Thread(this::initialize, "HeadDrop-Database-Init");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(createTableSQL)) {
-            statement.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
+    private void initialize() {
+        long start = System.currentTimeMillis();
+        try {
+            engine = createEngine();
+            engine.open();
+        } catch (Exception e) {
+            state = State.FAILED;
+            executor.shutdownNow();
+            Bukkit.getLogger().severe("[头颅掉落] 数据库初始化失败，积分只保存在内存和掉落日志中: " + e.getMessage());
+            return;
         }
 
-        if (isSQLite) {
-            addMissingColumnsSQLite();
+        initializationMillis = System.currentTimeMillis() - start;
+        if (closed) {
+            // 初始化期间插件已被禁用
+            engine.close();
+            return;
         }
+        state = State.READY;
+        executor.open();
+        Bukkit.getLogger().info("[头颅掉落] 数据库已就绪（" + engine.getName() + "），耗时 " + initializationMillis + "ms");
     }
 
-    private void addMissingColumnsSQLite() {
-        try (Connection connection = dataSource.getConnection()) {
-            String query = "PRAGMA table_info(headdrop);";
-            try (Statement stmt = connection.createStatement();
-                 ResultSet rs = stmt.executeQuery(query)) {
-
-                Set<String> existingColumns = new HashSet<>();
-                while (rs.next()) {
-                    existingColumns.add(rs.getString("name"));
-                }
-
-                if (!existingColumns.contains("last_updated")) {
-                    String alterTableQuery = "ALTER TABLE headdrop ADD COLUMN last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP";
-                    try (PreparedStatement alterStmt = connection.prepareStatement(alterTableQuery)) {
-                        alterStmt.execute();
-                        System.out.println("Column 'last_updated' added.");
-                    } catch (SQLException e) {
-                        System.out.println("Error adding missing column 'last_updated'.");
-                        e.printStackTrace();
-                    }
-                }
-
+    /**
+     * 按 Database.Engine 选择存储引擎，AUTO 时按连接URL判断
+     */
+    private StorageEngine createEngine() {
+        String url = config.getString("Database.URL", "");
+        String type = config.getString("Database.Engine", "AUTO").trim().toUpperCase(Locale.ROOT);
+        if (type.equals("AUTO")) {
+            String lowerUrl = url.toLowerCase(Locale.ROOT);
+            if (lowerUrl.contains("mysql") || lowerUrl.contains("mariadb")) {
+                type = "MYSQL";
+            } else if (lowerUrl.contains("sqlite")) {
+                type = "SQLITE";
+            } else if (lowerUrl.contains("h2")) {
+                type = "H2";
+            } else {
+                throw new IllegalArgumentException("无法从连接URL判断数据库类型: " + url);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
-    }
 
-    public int getDataByUuid(String uuid) {
-        String query = "SELECT data FROM headdrop WHERE uuid = ?";
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, uuid);
-            try (ResultSet result = statement.executeQuery()) {
-                if (result.next()) {
-                    return result.getInt("data");
-                }
+        File dataFolder = HeadDrop.getInstance().getDataFolder();
+        String username = config.getString("Database.User");
+        String password = config.getString("Database.Password");
+        boolean binaryUuid = config.getBoolean("Database.Binary-UUID", false);
+        return switch (type) {
+            case "MYSQL" -> new MySQLStorageEngine(url, username, password, getPoolSize(), binaryUuid);
+            case "SQLITE" -> new SQLiteStorageEngine(new File(dataFolder, url.replace("jdbc:sqlite:", "")),
+                    getPoolSize(), binaryUuid);
+            case "H2" -> {
+                String path = url.replace("jdbc:h2:", "").replace("file:", "");
+                if (path.contains(";")) path = path.substring(0, path.indexOf(';'));
+                yield new H2StorageEngine(new File(dataFolder, path.replace(".mv.db", "")),
+                        username, password, getPoolSize(), binaryUuid);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return 0;
+            case "FILE" -> new FlatFileStorageEngine(new File(dataFolder, config.getString("Database.File-Path", "HeadDrop.dat")));
+            default -> throw new IllegalArgumentException("不支持的数据库类型: " + type);
+        };
     }
 
-    public Integer getDataByName(String name) {
-        String query = "SELECT data FROM headdrop WHERE name = ?";
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, name);
-            try (ResultSet result = statement.executeQuery()) {
-                if (result.next()) {
-                    return result.getInt("data");
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return 0;
+    /**
+     * 获取初始化状态
+     *
+     * @return 状态
+     */
+    public State getState() {
+        return state;
     }
 
-    public void updateDataByUuid(String uuid, String name, int data) {
-        String selectSQL = "SELECT * FROM headdrop WHERE uuid = ?";
-        String insertSQL = "INSERT INTO headdrop (name, uuid, data, last_updated) VALUES (?, ?, ?, " + getCurrentTimestampFunction() + ")";
-        String updateSQL = "UPDATE headdrop SET name = ?, data = ?, last_updated = " + getCurrentTimestampFunction() + " WHERE uuid = ?";
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement selectStatement = connection.prepareStatement(selectSQL)) {
-
-            selectStatement.setString(1, uuid);
-            try (ResultSet resultSet = selectStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    try (PreparedStatement updateStatement = connection.prepareStatement(updateSQL)) {
-                        updateStatement.setString(1, name);
-                        updateStatement.setInt(2, data);
-                        updateStatement.setString(3, uuid);
-                        updateStatement.executeUpdate();
-                    }
-                } else {
-                    // Row doesn't exist, insert it
-                    try (PreparedStatement insertStatement = connection.prepareStatement(insertSQL)) {
-                        insertStatement.setString(1, name);
-                        insertStatement.setString(2, uuid);
-                        insertStatement.setInt(3, data);
-                        insertStatement.executeUpdate();
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    /**
+     * 数据库是否已可以直接查询
+     *
+     * @return 是否就绪
+     */
+    public boolean isReady() {
+        return state == State.READY;
     }
 
-    public void updateDataByName(String name, int data) {
-        String selectSQL = "SELECT * FROM headdrop WHERE name = ?";
-        String insertSQL = "INSERT INTO headdrop (name, uuid, data, last_updated) VALUES (?, ?, ?, " + getCurrentTimestampFunction() + ")";
-        String updateSQL = "UPDATE headdrop SET data = ?, last_updated = " + getCurrentTimestampFunction() + " WHERE name = ?";
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement selectStatement = connection.prepareStatement(selectSQL)) {
-
-            selectStatement.setString(1, name);
-            try (ResultSet resultSet = selectStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    // Row exists, update it
-                    try (PreparedStatement updateStatement = connection.prepareStatement(updateSQL)) {
-                        updateStatement.setInt(1, data);
-                        updateStatement.setString(2, name);
-                        updateStatement.executeUpdate();
-                    }
-                } else {
-                    // Row doesn't exist, insert it.
-                    // Note: Ensure that Bukkit.getPlayer(name) is not null. Otherwise, handle the null case.
-                    UUID uuid = Bukkit.getPlayer(name).getUniqueId();
-                    try (PreparedStatement insertStatement = connection.prepareStatement(insertSQL)) {
-                        insertStatement.setString(1, name);
-                        insertStatement.setString(2, uuid.toString());
-                        insertStatement.setInt(3, data);
-                        insertStatement.executeUpdate();
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    /**
+     * 获取初始化耗时
+     *
+     * @return 毫秒，尚未完成时返回-1
+     */
+    public long getInitializationMillis() {
+        return initializationMillis;
     }
 
-    public Map<String, Integer> getPlayerData() {
-        Map<String, Integer> playerData = new HashMap<>();
-        String query = "SELECT name, data FROM headdrop";
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query);
-             ResultSet result = statement.executeQuery()) {
-            while (result.next()) {
-                String name = result.getString("name");
-                int data = result.getInt("data");
-                playerData.put(name, data);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return playerData;
+    /**
+     * 获取存储引擎名称
+     *
+     * @return 名称，尚未选择引擎时返回 "-"
+     */
+    public String getEngineName() {
+        StorageEngine current = engine;
+        return current == null ? "-" : current.getName();
+    }
+
+    private int getPoolSize() {
+        return Math.max(1, config.getInt("Database.Pool-Size", 10));
+    }
+
+    /**
+     * 获取数据库专用执行器，所有异步数据库操作都应提交到这里
+     *
+     * @return 执行器
+     */
+    public DatabaseExecutor getExecutor() {
+        return executor;
     }
 
-    public void cleanupOldData(int days) {
-        String query;
-        if (isSQLite) {
-            query = "DELETE FROM headdrop WHERE last_updated < datetime('now', '-' || ? || ' days')";
+    /**
+     * 执行完队列中的任务后关闭执行器和存储引擎
+     */
+    public void close() {
+        closed = true;
+        if (isReady()) {
+            executor.shutdown(10_000L);
         } else {
-            query = "DELETE FROM headdrop WHERE last_updated < NOW() - INTERVAL ? DAY";
+            executor.shutdownNow();
         }
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setInt(1, days);
-            int rowsDeleted = statement.executeUpdate();
-            System.out.println("Cleaned up " + rowsDeleted + " rows older than " + days + " days.");
-        } catch (SQLException e) {
-            e.printStackTrace();
+        StorageEngine current = engine;
+        if (current != null) {
+            current.close();
         }
     }
 
-    public void setupDataSource() {
-        String connectionString = config.getString("Database.URL");
-        String username = config.getString("Database.User");
-        String password = config.getString("Database.Password");
-        HikariConfig hikariConfig = new HikariConfig();
-
-        if (connectionString.contains("mysql")) {
-            isSQLite = false;
-            hikariConfig.setDriverClassName("com.mysql.cj.jdbc.Driver");
-            hikariConfig.setJdbcUrl(connectionString);
-            hikariConfig.setUsername(username);
-            hikariConfig.setPassword(password);
-            hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
-            hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
-            hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
-        } else if (connectionString.contains("sqlite")) {
-            isSQLite = true;
-            hikariConfig.setDriverClassName("org.sqlite.JDBC");
-            File dataFolder = HeadDrop.getInstance().getDataFolder();
-            File dbFile = new File(dataFolder, connectionString.replace("jdbc:sqlite:", ""));
-            hikariConfig.setJdbcUrl("jdbc:sqlite:" + dbFile.getAbsolutePath());
-        } else {
-            throw new IllegalArgumentException("Unsupported database type");
-        }
+    // region 积分
 
-        hikariConfig.setMaximumPoolSize(10);
-        hikariConfig.setConnectionTimeout(30000);
-        hikariConfig.setIdleTimeout(600000);
-        hikariConfig.setMaxLifetime(1800000);
-        hikariConfig.setLeakDetectionThreshold(2000);
+    /**
+     * 获取玩家积分
+     *
+     * @param uuid 玩家UUID
+     * @return 积分，没有记录时返回0，读取失败时返回空
+     */
+    public OptionalInt getScore(UUID uuid) {
+        return engine.getScore(uuid);
+    }
+
+    /**
+     * 按名称获取玩家积分（离线模式）
+     *
+     * @param name 玩家名称
+     * @return 积分，没有记录时返回0，读取失败时返回空
+     */
+    public OptionalInt getDataByName(String name) {
+        return engine.getScoreByName(name);
+    }
+
+    /**
+     * 原子地增加玩家积分，记录不存在时插入
+     *
+     * @param uuid 玩家UUID
+     * @param name 玩家名称
+     * @param delta 增量
+     * @return 是否写入成功
+     */
+    public boolean incrementScore(UUID uuid, String name, int delta) {
+        return engine.incrementScore(uuid, name, delta);
+    }
+
+    /**
+     * 批量增加积分，全部成功或全部失败
+     *
+     * @param deltas 每个玩家的增量
+     * @return 是否写入成功
+     */
+    public boolean incrementScores(List<ScoreDelta> deltas) {
+        return engine.incrementScores(deltas);
+    }
 
-        this.dataSource = new HikariDataSource(hikariConfig);
+    /**
+     * 按名称设置玩家积分（离线模式）
+     *
+     * @param uuid 玩家UUID（没有该名称的记录时使用）
+     * @param name 玩家名称
+     * @param data 积分
+     * @return 是否写入成功
+     */
+    public boolean updateDataByName(UUID uuid, String name, int data) {
+        return engine.setScoreByName(uuid, name, data);
+    }
 
-        if (isSQLite) {
-            try (Connection connection = dataSource.getConnection();
-                 Statement statement = connection.createStatement()) {
-                statement.execute("PRAGMA journal_mode=WAL;");
-            } catch (SQLException e) {
-                e.printStackTrace();
+    // endregion
+
+    // region 生物统计
+
+    /**
+     * 批量累加按生物类型统计的数量
+     *
+     * @param counts 每个 (玩家, 生物类型) 组合的增量
+     * @return 是否写入成功
+     */
+    public boolean incrementKills(Map<KillCounter.Key, Long> counts) {
+        return engine.incrementKills(counts);
+    }
+
+    /**
+     * 获取某种生物的头颅排行榜
+     *
+     * @param entityType 生物类型
+     * @param limit 条目数
+     * @param offset 跳过的条目数
+     * @return 按数量从高到低排列的统计
+     */
+    public List<KillCount> getTopByEntity(String entityType, int limit, int offset) {
+        return engine.getTopByEntity(entityType, limit, offset);
+    }
+
+    /**
+     * 获取玩家按生物类型的头颅数量
+     *
+     * @param uuid 玩家UUID
+     * @return 生物类型到数量的映射，按数量从高到低排列
+     */
+    public Map<String, Long> getKillsByPlayer(UUID uuid) {
+        return engine.getKillsByPlayer(uuid);
+    }
+
+    /**
+     * 获取某种生物的头颅总数
+     *
+     * @param entityType 生物类型
+     * @return 总数
+     */
+    public long getTotalKills(String entityType) {
+        return engine.getTotalKills(entityType);
+    }
+
+    // endregion
+
+    // region 时间窗口
+
+    /**
+     * 把积分增量累加到日、周、月三个时间桶
+     *
+     * @param deltas 积分增量
+     * @param date 增量所属的日期
+     * @return 是否写入成功
+     */
+    public boolean addToBuckets(List<ScoreDelta> deltas, LocalDate date) {
+        return engine.addToBuckets(deltas, date);
+    }
+
+    /**
+     * 获取时间窗口内的排行榜
+     *
+     * @param window 时间窗口
+     * @param date 窗口内的任意日期
+     * @param limit 条目数
+     * @param offset 跳过的条目数
+     * @return 排行榜条目
+     */
+    public List<LeaderboardEntry> getWindowTop(TimeWindow window, LocalDate date, int limit, int offset) {
+        return engine.getWindowTop(window, date, limit, offset);
+    }
+
+    /**
+     * 按配置删除过期的时间桶，保留数量为0的粒度不清理
+     */
+    public void pruneBuckets() {
+        LocalDate today = LocalDate.now();
+        for (TimeWindow window : TimeWindow.values()) {
+            int keep = config.getInt("Database.Windows." + window.getRetentionKey(), 0);
+            if (keep <= 0) continue;
+
+            int deleted = engine.pruneBuckets(window, window.bucketStart(window.minus(today, keep)));
+            if (deleted > 0) {
+                Bukkit.getLogger().info("[头颅掉落] 已清理 " + deleted + " 条过期的" + window.getDisplayName() + "积分记录");
             }
         }
     }
+
+    // endregion
+
+    // region 排名
+
+    /**
+     * 按积分从高到低获取一页排行榜
+     *
+     * @param limit 条目数
+     * @param offset 跳过的条目数
+     * @return 排行榜条目
+     */
+    public List<LeaderboardEntry> getTop(int limit, int offset) {
+        return engine.getTop(limit, offset);
+    }
+
+    /**
+     * 逐行读取全部积分（用于构建内存排行榜）
+     *
+     * @param consumer 每行的回调
+     */
+    public void forEachScore(LeaderboardIndex.ScoreConsumer consumer) {
+        engine.forEachScore(consumer);
+    }
+
+    /**
+     * 获取玩家排名（积分严格高于该玩家的人数加一）
+     *
+     * @param uuid 玩家UUID
+     * @return 排名，没有记录时返回0
+     */
+    public int getRank(UUID uuid) {
+        return engine.getRank(uuid);
+    }
+
+    /**
+     * 获取排行榜总人数
+     *
+     * @return 记录数
+     */
+    public int getPlayerCount() {
+        return engine.getPlayerCount();
+    }
+
+    // endregion
+
+    // region 保留
+
+    /**
+     * 把超过保留天数未活跃的玩家移入归档
+     *
+     * @param days 保留天数
+     * @param limit 本批最多归档的行数
+     * @return 已归档的玩家UUID
+     */
+    public List<UUID> archiveInactive(int days, int limit) {
+        return engine.archiveInactive(days, limit);
+    }
+
+    /**
+     * 把归档的玩家恢复到主表（主表已有该玩家时把归档的积分累加到主表）
+     *
+     * @param uuid 玩家UUID
+     * @return 是否恢复了归档的积分
+     */
+    public boolean restoreArchived(UUID uuid) {
+        return engine.restoreArchived(uuid);
+    }
+
+    // endregion
 }
@@ -0,0 +1,285 @@
+package me.rrs.headdrop.database;
+
+import org.bukkit.Bukkit;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 数据库专用执行器
+ * 固定数量的工作线程从有界队列取任务，不占用服务器共享的异步线程池。
+ * 带合并键的任务在队列中最多存在一个；队列已满时按配置的策略处理。
+ * 通过 {@link #tryExecute(Runnable)} 提交的任务不会阻塞调用线程，也不会被 DROP_OLDEST 丢弃。
+ * 数据库就绪前任务只进入队列，调用 {@link #open()} 后工作线程才开始执行。
+ */
+public final class DatabaseExecutor {
+
+    /**
+     * 队列已满时的处理策略
+     */
+    public enum OverflowPolicy {
+        /**
+         * 等待队列空位，超时后放弃新任务
+         */
+        BLOCK,
+        /**
+         * 丢弃队列中最早的任务
+         */
+        DROP_OLDEST;
+
+        public static OverflowPolicy parse(String value) {
+            try {
+                return value == null ? BLOCK : valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                Bukkit.getLogger().warning("[头颅掉落] 未知的数据库队列策略: " + value + "，使用 BLOCK");
+                return BLOCK;
+            }
+        }
+    }
+
+    /**
+     * 执行器运行指标
+     */
+    public record Metrics(int queueDepth, long completed, long failed, long rejected, long dropped, long merged,
+                          double averageWaitMillis, double maxWaitMillis, double averageExecutionMillis) {
+    }
+
+    private static final Job POISON = new Job(null, () -> { }, 0L, false);
+
+    private final BlockingQueue<Job> queue;
+    private final Set<String> pendingKeys = ConcurrentHashMap.newKeySet();
+    private final OverflowPolicy policy;
+    private final long blockTimeoutMillis;
+    private final Thread[] workers;
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private volatile boolean shutdown;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder merged = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalExecutionNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0L);
+
+    public DatabaseExecutor(int threads, int queueSize, OverflowPolicy policy, long blockTimeoutMillis) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+        this.policy = policy;
+        this.blockTimeoutMillis = Math.max(0L, blockTimeoutMillis);
+        this.workers = new Thread[Math.max(1, threads)];
+        for (int i = 0; i < workers.length; i++) {
+            Thread worker = new Thread(this::work, "HeadDrop-Database-" + (i + 1));
+            worker.setDaemon(true);
+            workers[i] = worker;
+            worker.start();
+        }
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param task 任务
+     * @return 是否被接受
+     */
+    public boolean execute(Runnable task) {
+        return execute(null, task);
+    }
+
+    /**
+     * 提交任务，相同合并键的任务尚未开始执行时新任务会被合并
+     *
+     * @param mergeKey 合并键（可为null）
+     * @param task 任务
+     * @return 是否被接受（被合并也视为接受）
+     */
+    public boolean execute(String mergeKey, Runnable task) {
+        if (shutdown) {
+            rejected.increment();
+            return false;
+        }
+        if (mergeKey != null && !pendingKeys.add(mergeKey)) {
+            merged.increment();
+            return true;
+        }
+
+        boolean accepted = offer(new Job(mergeKey, task, System.nanoTime(), true));
+        if (!accepted && mergeKey != null) {
+            pendingKeys.remove(mergeKey);
+        }
+        return accepted;
+    }
+
+    /**
+     * 提交不可丢弃的任务，可以在主线程和区域线程中调用
+     * 队列已满时立即返回 false 而不是等待；已入队的任务不会被 DROP_OLDEST 挤出队列。
+     *
+     * @param task 任务
+     * @return 是否被接受，未被接受时由调用方稍后重试
+     */
+    public boolean tryExecute(Runnable task) {
+        if (shutdown) {
+            rejected.increment();
+            return false;
+        }
+        if (queue.offer(new Job(null, task, System.nanoTime(), false))) return true;
+        rejected.increment();
+        return false;
+    }
+
+    private boolean offer(Job job) {
+        if (queue.offer(job)) return true;
+
+        if (policy == OverflowPolicy.DROP_OLDEST) {
+            while (!queue.offer(job)) {
+                if (!evictOldest()) {
+                    // 队列中全是不可丢弃的任务
+                    rejected.increment();
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        try {
+            if (queue.offer(job, blockTimeoutMillis, TimeUnit.MILLISECONDS)) return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejected.increment();
+        Bukkit.getLogger().warning("[头颅掉落] 数据库任务队列已满，已放弃一个任务（队列长度 " + queue.size() + "）");
+        return false;
+    }
+
+    /**
+     * 丢弃队列中最早的可丢弃任务
+     *
+     * @return 是否丢弃了任务
+     */
+    private boolean evictOldest() {
+        Iterator<Job> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            Job oldest = iterator.next();
+            if (!oldest.evictable) continue;
+            if (queue.remove(oldest)) {
+                if (oldest.mergeKey != null) pendingKeys.remove(oldest.mergeKey);
+                dropped.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 允许工作线程开始执行任务（数据库就绪时调用）
+     */
+    public void open() {
+        gate.countDown();
+    }
+
+    private void work() {
+        try {
+            gate.await();
+        } catch (InterruptedException e) {
+            return;
+        }
+        while (true) {
+            Job job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (job == POISON) return;
+
+            // 开始执行前释放合并键，执行期间的新请求会重新排队
+            if (job.mergeKey != null) pendingKeys.remove(job.mergeKey);
+
+            long start = System.nanoTime();
+            long wait = start - job.enqueuedAt;
+            totalWaitNanos.add(wait);
+            maxWaitNanos.accumulate(wait);
+            try {
+                job.task.run();
+                completed.increment();
+            } catch (Throwable t) {
+                failed.increment();
+                Bukkit.getLogger().severe("[头颅掉落] 数据库任务执行失败: " + t);
+                t.printStackTrace();
+            } finally {
+                totalExecutionNanos.add(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * 停止接受新任务，执行完队列中的任务后关闭工作线程
+     *
+     * @param timeoutMillis 最长等待时间（毫秒）
+     */
+    public void shutdown(long timeoutMillis) {
+        shutdown = true;
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (int i = 0; i < workers.length; i++) {
+            try {
+                if (!queue.offer(POISON, Math.max(0L, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1L, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (worker.isAlive()) worker.interrupt();
+        }
+    }
+
+    /**
+     * 丢弃队列中的任务并立即停止工作线程（数据库无法连接时调用）
+     */
+    public void shutdownNow() {
+        shutdown = true;
+        int discarded = queue.size();
+        queue.clear();
+        pendingKeys.clear();
+        dropped.add(discarded);
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * 获取运行指标
+     *
+     * @return 指标快照
+     */
+    public Metrics getMetrics() {
+        long started = completed.sum() + failed.sum();
+        return new Metrics(
+                queue.size(),
+                completed.sum(),
+                failed.sum(),
+                rejected.sum(),
+                dropped.sum(),
+                merged.sum(),
+                started == 0 ? 0 : totalWaitNanos.sum() / 1_000_000.0 / started,
+                maxWaitNanos.get() / 1_000_000.0,
+                started == 0 ? 0 : totalExecutionNanos.sum() / 1_000_000.0 / started);
+    }
+
+    private record Job(String mergeKey, Runnable task, long enqueuedAt, boolean evictable) {
+    }
+}
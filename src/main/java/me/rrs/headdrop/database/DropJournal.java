@@ -0,0 +1,443 @@
+package me.rrs.headdrop.database;
+
+import org.bukkit.Bukkit;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * 掉落日志
+ * 击杀时先把积分增量追加到内存缓冲区，由后台线程按固定间隔批量写入当前段文件并刷盘。
+ * 积分缓存写回时切换到新段，写回成功后把仍未写入数据库的增量压缩为快照，
+ * 快照通过原子重命名生效并取代之前的所有段，之后删除旧文件。
+ * 追加按玩家UUID分散到多个分片，每个分片有独立的锁和缓冲区，不同区域线程的击杀不会争用同一把锁；
+ * 切换日志段时按顺序持有全部分片锁。
+ * 启动时读取最新快照和之后的段，把未写入数据库的积分交还给积分缓存。
+ * <p>
+ * 记录格式：[int 长度][UUID 16字节][UTF 名称][int 积分][long 时间][int CRC32]，
+ * 读取时遇到不完整或校验失败的记录（崩溃时写了一半）即停止。
+ */
+public final class DropJournal {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SUFFIX = ".log";
+    private static final int MAX_RECORD_SIZE = 1024;
+    private static final int STRIPES = 16;
+
+    /**
+     * 从日志恢复的积分
+     *
+     * @param name 玩家名称
+     * @param points 未写入数据库的积分（超出 int 范围时取边界值）
+     */
+    public record Recovered(String name, int points) {
+    }
+
+    private final File directory;
+    private final long syncIntervalMillis;
+
+    // 锁顺序：ioLock -> 分片锁（按下标从小到大）
+    private final Object ioLock = new Object();
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private FileChannel channel;
+    private long segmentId;
+    private Thread syncThread;
+    // 停止刷盘线程时不使用中断：线程在 FileChannel 写入时被中断会关闭整个通道，已取出的缓冲区随之丢失
+    private final Object syncSignal = new Object();
+    private volatile boolean stopping;
+    private volatile boolean closed = true;
+
+    public DropJournal(File directory, long syncIntervalMillis) {
+        this.directory = directory;
+        this.syncIntervalMillis = Math.max(10L, syncIntervalMillis);
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * 恢复未确认的积分并打开新的日志段
+     * 恢复的积分会先写入快照再删除旧文件，重启过程中再次崩溃也不会丢失。
+     *
+     * @return 每个玩家未写入数据库的积分
+     */
+    public Map<UUID, Recovered> open() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("无法创建日志目录: " + directory);
+        }
+        File[] temporary = directory.listFiles((dir, name) -> name.endsWith(".tmp"));
+        if (temporary != null) {
+            for (File file : temporary) {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+
+        long snapshotId = latestId(SNAPSHOT_PREFIX);
+        long maxId = Math.max(snapshotId, latestId(SEGMENT_PREFIX));
+
+        Map<UUID, Recovered> recovered = new LinkedHashMap<>();
+        if (snapshotId >= 0) {
+            read(file(SNAPSHOT_PREFIX, snapshotId), recovered);
+        }
+        for (long id : ids(SEGMENT_PREFIX)) {
+            if (id > snapshotId) read(file(SEGMENT_PREFIX, id), recovered);
+        }
+        recovered.values().removeIf(entry -> entry.points() == 0);
+
+        if (maxId >= 0) {
+            List<ScoreDelta> carried = new ArrayList<>(recovered.size());
+            recovered.forEach((uuid, entry) -> carried.add(new ScoreDelta(uuid, entry.name(), entry.points())));
+            compact(maxId, carried);
+        }
+        if (!recovered.isEmpty()) {
+            Bukkit.getLogger().warning("[头颅掉落] 已从掉落日志恢复 " + recovered.size() + " 名玩家未写入数据库的积分");
+        }
+
+        segmentId = maxId + 1;
+        channel = openSegment(segmentId);
+        closed = false;
+
+        stopping = false;
+        syncThread = new Thread(this::syncLoop, "HeadDrop-Journal");
+        syncThread.setDaemon(true);
+        syncThread.start();
+        return recovered;
+    }
+
+    /**
+     * 追加一条记录，并在该玩家所在分片的锁内更新内存中的积分
+     * 切换日志段时持有全部分片锁，内存积分与已封存的段严格对应。
+     *
+     * @param uuid 玩家UUID
+     * @param name 玩家名称
+     * @param points 积分
+     * @param apply 更新内存积分
+     */
+    public void append(UUID uuid, String name, int points, Runnable apply) {
+        Stripe stripe = stripes[(uuid.hashCode() & 0x7fffffff) % stripes.length];
+        synchronized (stripe) {
+            if (!closed) {
+                try {
+                    stripe.writeRecord(stripe.bufferOut, uuid, name, points, System.currentTimeMillis());
+                } catch (IOException e) {
+                    // 写入内存缓冲区不会失败
+                    throw new UncheckedIOException(e);
+                }
+            }
+            apply.run();
+        }
+    }
+
+    /**
+     * 封存当前日志段并打开新段
+     *
+     * @param capture 在全部分片锁内执行，用于读取与封存段对应的内存积分
+     * @return 封存的段号，切换失败时返回-1（此时不应压缩）
+     */
+    public long rotate(Runnable capture) {
+        synchronized (ioLock) {
+            byte[][] remaining = new byte[stripes.length][];
+            FileChannel sealed;
+            long sealedId;
+            FileChannel next;
+            try {
+                next = closed ? null : openSegment(segmentId + 1);
+            } catch (IOException e) {
+                Bukkit.getLogger().severe("[头颅掉落] 无法创建新的掉落日志段: " + e.getMessage());
+                next = null;
+            }
+            FileChannel opened = next;
+            boolean[] switched = new boolean[1];
+            withAllStripes(0, () -> {
+                capture.run();
+                if (closed || opened == null) return;
+
+                for (int i = 0; i < stripes.length; i++) {
+                    remaining[i] = stripes[i].drain();
+                }
+                switched[0] = true;
+            });
+            if (!switched[0]) {
+                closeQuietly(opened);
+                return -1;
+            }
+            sealed = channel;
+            sealedId = segmentId;
+            channel = opened;
+            segmentId++;
+
+            try (FileChannel toClose = sealed) {
+                for (byte[] bytes : remaining) {
+                    writeFully(toClose, bytes);
+                }
+                toClose.force(false);
+                return sealedId;
+            } catch (IOException e) {
+                Bukkit.getLogger().severe("[头颅掉落] 封存掉落日志段失败: " + e.getMessage());
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * 用快照取代已封存的段
+     *
+     * @param sealedId 封存的段号
+     * @param carried 仍未写入数据库的积分
+     */
+    public void compact(long sealedId, List<ScoreDelta> carried) {
+        try {
+            if (!carried.isEmpty()) {
+                File target = file(SNAPSHOT_PREFIX, sealedId);
+                File temp = new File(directory, target.getName() + ".tmp");
+                try (FileOutputStream stream = new FileOutputStream(temp)) {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream(carried.size() * 48);
+                    DataOutputStream out = new DataOutputStream(bytes);
+                    long now = System.currentTimeMillis();
+                    Stripe encoder = new Stripe();
+                    for (ScoreDelta delta : carried) {
+                        encoder.writeRecord(out, delta.uuid(), delta.name(), delta.points(), now);
+                    }
+                    bytes.writeTo(stream);
+                    stream.getFD().sync();
+                }
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            // 快照生效后删除被取代的文件；没有快照时已封存的段全部确认
+            for (long id : ids(SEGMENT_PREFIX)) {
+                if (id <= sealedId) Files.deleteIfExists(file(SEGMENT_PREFIX, id).toPath());
+            }
+            for (long id : ids(SNAPSHOT_PREFIX)) {
+                if (id < sealedId || (id == sealedId && carried.isEmpty())) {
+                    Files.deleteIfExists(file(SNAPSHOT_PREFIX, id).toPath());
+                }
+            }
+        } catch (IOException e) {
+            Bukkit.getLogger().severe("[头颅掉落] 压缩掉落日志失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 写入剩余记录并关闭日志
+     */
+    public void close() {
+        if (syncThread != null) {
+            stopping = true;
+            synchronized (syncSignal) {
+                syncSignal.notifyAll();
+            }
+            try {
+                syncThread.join(1000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            syncThread = null;
+        }
+        synchronized (ioLock) {
+            sync();
+            withAllStripes(0, () -> closed = true);
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                channel = null;
+            }
+        }
+    }
+
+    // region 读写
+
+    private void syncLoop() {
+        while (!stopping) {
+            synchronized (syncSignal) {
+                try {
+                    if (!stopping) syncSignal.wait(syncIntervalMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            // 关闭时由 close() 在 ioLock 内写入剩余记录
+            if (stopping) return;
+            synchronized (ioLock) {
+                sync();
+            }
+        }
+    }
+
+    /**
+     * 把各分片的缓冲区写入当前段并刷盘（需持有 ioLock，当前段只在持有 ioLock 时切换）
+     * 每个分片只在取出缓冲区时短暂加锁，写文件和刷盘期间不阻塞追加。
+     */
+    private void sync() {
+        if (closed || channel == null) return;
+
+        boolean written = false;
+        try {
+            for (Stripe stripe : stripes) {
+                byte[] bytes;
+                synchronized (stripe) {
+                    if (stripe.buffer.size() == 0) continue;
+                    bytes = stripe.drain();
+                }
+                writeFully(channel, bytes);
+                written = true;
+            }
+            if (written) channel.force(false);
+        } catch (IOException e) {
+            Bukkit.getLogger().severe("[头颅掉落] 写入掉落日志失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 按下标顺序持有全部分片锁后执行
+     */
+    private void withAllStripes(int index, Runnable action) {
+        if (index == stripes.length) {
+            action.run();
+            return;
+        }
+        synchronized (stripes[index]) {
+            withAllStripes(index + 1, action);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer source = ByteBuffer.wrap(bytes);
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+
+    private static void read(File file, Map<UUID, Recovered> into) throws IOException {
+        CRC32 checksum = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                byte[] payload;
+                int expected;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_SIZE) break;
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    expected = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+
+                checksum.reset();
+                checksum.update(payload, 0, payload.length);
+                if ((int) checksum.getValue() != expected) {
+                    Bukkit.getLogger().warning("[头颅掉落] 掉落日志 " + file.getName() + " 末尾的记录已损坏，已忽略");
+                    break;
+                }
+
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                UUID uuid = new UUID(record.readLong(), record.readLong());
+                String name = record.readUTF();
+                int points = record.readInt();
+                into.merge(uuid, new Recovered(name, points),
+                        (old, added) -> new Recovered(added.name(), saturate((long) old.points() + added.points())));
+            }
+        }
+    }
+
+    /**
+     * 截断到 int 范围，积分在日志、缓存和数据库中都以 int 保存，超出时取边界值而不是溢出变号
+     */
+    static int saturate(long points) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, points));
+    }
+
+    private FileChannel openSegment(long id) throws IOException {
+        return FileChannel.open(file(SEGMENT_PREFIX, id).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // endregion
+
+    // region 文件
+
+    private File file(String prefix, long id) {
+        return new File(directory, prefix + String.format("%020d", id) + SUFFIX);
+    }
+
+    private long latestId(String prefix) {
+        List<Long> ids = ids(prefix);
+        return ids.isEmpty() ? -1 : ids.get(ids.size() - 1);
+    }
+
+    private List<Long> ids(String prefix) {
+        List<Long> ids = new ArrayList<>();
+        String[] names = directory.list();
+        if (names == null) return ids;
+
+        for (String name : names) {
+            if (!name.startsWith(prefix) || !name.endsWith(SUFFIX)) continue;
+            try {
+                ids.add(Long.parseLong(name.substring(prefix.length(), name.length() - SUFFIX.length())));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    // endregion
+
+    /**
+     * 追加分片：缓冲区和编码用的临时对象，只在持有该分片的锁时使用
+     */
+    private static final class Stripe {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+        private final DataOutputStream bufferOut = new DataOutputStream(buffer);
+        private final ByteArrayOutputStream scratch = new ByteArrayOutputStream(64);
+        private final DataOutputStream scratchOut = new DataOutputStream(scratch);
+        private final CRC32 crc = new CRC32();
+
+        private byte[] drain() {
+            byte[] bytes = buffer.toByteArray();
+            buffer.reset();
+            return bytes;
+        }
+
+        /**
+         * 编码一条记录
+         */
+        private void writeRecord(DataOutputStream target, UUID uuid, String name, int points, long time) throws IOException {
+            scratch.reset();
+            scratchOut.writeLong(uuid.getMostSignificantBits());
+            scratchOut.writeLong(uuid.getLeastSignificantBits());
+            scratchOut.writeUTF(name == null ? "" : name);
+            scratchOut.writeInt(points);
+            scratchOut.writeLong(time);
+
+            byte[] payload = scratch.toByteArray();
+            crc.reset();
+            crc.update(payload, 0, payload.length);
+
+            target.writeInt(payload.length);
+            target.write(payload);
+            target.writeInt((int) crc.getValue());
+        }
+    }
+}
@@ -214,6 +214,8 @@ public enum EntityHead {
       private final String sound;
       private final String headHash;
       private final UUID headUUID;
+      // 预先构建好的头颅模板，只对外提供克隆；配置或语言重载时失效
+      private volatile SkullTemplate template;
 
       final HeadDrop instance = HeadDrop.getInstance();
 
@@ -223,7 +225,31 @@ public enum EntityHead {
             this.headHash = headHash;
             this.headUUID = UUID.nameUUIDFromBytes(headHash.getBytes());
       }
+      /**
+       * 获取该变种的头颅物品
+       * 物品由缓存的模板克隆而来，调用者可以自由修改
+       *
+       * @return 头颅物品，掉落被禁用时返回null
+       */
       public ItemStack getSkull() {
+            SkullTemplate current = template;
+            if (current == null) {
+                  current = new SkullTemplate(buildSkull());
+                  template = current;
+            }
+            return current.item == null ? null : current.item.clone();
+      }
+
+      /**
+       * 使所有头颅模板失效，下次获取时按当前配置重新构建
+       */
+      public static void invalidateTemplates() {
+            for (EntityHead head : values()) {
+                  head.template = null;
+            }
+      }
+
+      private ItemStack buildSkull() {
             ItemStack skull = SkullCreator.createSkullWithBase64(headHash, headUUID);
             if (skull.getType().equals(Material.PLAYER_HEAD)) {
                   SkullMeta meta = (SkullMeta) skull.getItemMeta();
@@ -248,6 +274,9 @@ public enum EntityHead {
             return skull;
       }
 
+      private record SkullTemplate(ItemStack item) {
+      }
+
       public String getName() {
             return name;
       }
@@ -0,0 +1,365 @@
+package me.rrs.headdrop.database;
+
+import org.bukkit.Bukkit;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * 单文件追加日志存储引擎（不需要 JDBC 驱动，适合小型服务器）
+ * 全部积分保存在内存中，排名由 {@link LeaderboardIndex} 计算；每次写入把玩家的完整状态追加到文件末尾，
+ * 一个批次只写入和刷盘一次。启动时顺序重放，同一玩家以最后一条记录为准。
+ * 记录数超过有效玩家数的两倍时，把当前状态写入临时文件，刷盘后通过原子重命名替换原文件。
+ * <p>
+ * 记录格式：[int 长度][byte 类型][UUID 16字节][UTF 名称][int 积分][long 活跃时间][int CRC32]，
+ * 类型为活跃、归档或恢复；归档的积分一直保留到恢复记录写入为止，期间的活跃记录不会覆盖它。
+ * 读取时遇到不完整或校验失败的记录（崩溃时写了一半）即停止，并截断到最后一条完整的记录。
+ * 不支持按生物类型统计和时间窗口排行榜。
+ */
+final class FlatFileStorageEngine implements StorageEngine {
+
+    private static final byte LIVE = 1;
+    private static final byte ARCHIVED = 2;
+    private static final byte RESTORED = 3;
+    private static final int MAX_RECORD_SIZE = 1024;
+    private static final int MIN_COMPACT_RECORDS = 1024;
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private record Row(String name, int score, long lastUpdated) {
+    }
+
+    private final File file;
+    private final Map<UUID, Row> live = new HashMap<>();
+    private final Map<UUID, Row> archived = new HashMap<>();
+    private final Map<String, UUID> byName = new HashMap<>();
+    private final LeaderboardIndex index = new LeaderboardIndex();
+
+    private final ByteArrayOutputStream scratch = new ByteArrayOutputStream(64);
+    private final DataOutputStream scratchOut = new DataOutputStream(scratch);
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel channel;
+    private long records;
+
+    FlatFileStorageEngine(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public String getName() {
+        return "File";
+    }
+
+    @Override
+    public synchronized void open() throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("无法创建数据目录: " + parent);
+        }
+        Files.deleteIfExists(temporaryFile().toPath());
+
+        long valid = file.isFile() ? read() : 0L;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() > valid) {
+            Bukkit.getLogger().warning("[头颅掉落] 数据文件 " + file.getName() + " 末尾的记录已损坏，已截断");
+            channel.truncate(valid);
+        }
+        channel.position(valid);
+        compactIfNeeded();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel == null) return;
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        channel = null;
+    }
+
+    // region 积分
+
+    @Override
+    public synchronized OptionalInt getScore(UUID uuid) {
+        Row row = live.get(uuid);
+        return OptionalInt.of(row == null ? 0 : row.score());
+    }
+
+    @Override
+    public synchronized OptionalInt getScoreByName(String name) {
+        UUID uuid = byName.get(nameKey(name));
+        return uuid == null ? OptionalInt.of(0) : getScore(uuid);
+    }
+
+    /**
+     * 整批编码后一次写入并刷盘，写入成功后才更新内存
+     */
+    @Override
+    public synchronized boolean incrementScores(List<ScoreDelta> deltas) {
+        if (deltas.isEmpty()) return true;
+
+        long now = System.currentTimeMillis();
+        Map<UUID, Row> updated = new LinkedHashMap<>();
+        for (ScoreDelta delta : deltas) {
+            Row current = updated.getOrDefault(delta.uuid(), live.get(delta.uuid()));
+            int score = current == null ? delta.points() : current.score() + delta.points();
+            updated.put(delta.uuid(), new Row(delta.name(), score, now));
+        }
+        return write(LIVE, updated);
+    }
+
+    @Override
+    public synchronized boolean setScoreByName(UUID uuid, String name, int score) {
+        UUID existing = byName.get(nameKey(name));
+        return write(LIVE, Map.of(existing != null ? existing : uuid, new Row(name, score, System.currentTimeMillis())));
+    }
+
+    // endregion
+
+    // region 排名
+
+    @Override
+    public List<LeaderboardEntry> getTop(int limit, int offset) {
+        return index.getTop(limit, offset);
+    }
+
+    @Override
+    public int getRank(UUID uuid) {
+        return index.getRank(uuid);
+    }
+
+    @Override
+    public synchronized int getPlayerCount() {
+        return live.size();
+    }
+
+    @Override
+    public void forEachScore(LeaderboardIndex.ScoreConsumer consumer) {
+        Map<UUID, Row> snapshot;
+        synchronized (this) {
+            snapshot = new HashMap<>(live);
+        }
+        snapshot.forEach((uuid, row) -> consumer.accept(uuid, row.name(), row.score()));
+    }
+
+    // endregion
+
+    // region 保留
+
+    @Override
+    public synchronized List<UUID> archiveInactive(int days, int limit) {
+        long cutoff = System.currentTimeMillis() - days * DAY_MILLIS;
+        Map<UUID, Row> expired = new LinkedHashMap<>();
+        for (Map.Entry<UUID, Row> entry : live.entrySet()) {
+            if (expired.size() >= limit) break;
+            Row row = entry.getValue();
+            if (row.lastUpdated() < cutoff) {
+                // 恢复前又被归档时累加到原归档上
+                Row previous = archived.get(entry.getKey());
+                expired.put(entry.getKey(), previous == null
+                        ? row
+                        : new Row(row.name(), previous.score() + row.score(), row.lastUpdated()));
+            }
+        }
+        if (expired.isEmpty() || !write(ARCHIVED, expired)) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(expired.keySet());
+    }
+
+    @Override
+    public synchronized boolean restoreArchived(UUID uuid) {
+        Row row = archived.get(uuid);
+        if (row == null) return false;
+
+        // 已有活跃记录时把归档的积分加到该记录上，恢复记录重放时才会丢弃归档
+        Row current = live.get(uuid);
+        Row target = current == null
+                ? new Row(row.name(), row.score(), System.currentTimeMillis())
+                : new Row(current.name(), current.score() + row.score(), System.currentTimeMillis());
+        return write(RESTORED, Map.of(uuid, target));
+    }
+
+    // endregion
+
+    // region 读写
+
+    /**
+     * 追加一批记录并刷盘，成功后应用到内存（需持有锁）
+     *
+     * @return 是否写入成功，失败时文件截断回写入前的长度
+     */
+    private boolean write(byte type, Map<UUID, Row> rows) {
+        if (channel == null) return false;
+
+        long position;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows.size() * 48);
+            DataOutputStream out = new DataOutputStream(bytes);
+            for (Map.Entry<UUID, Row> entry : rows.entrySet()) {
+                writeRecord(out, type, entry.getKey(), entry.getValue());
+            }
+            position = channel.position();
+            try {
+                writeFully(channel, bytes.toByteArray());
+                channel.force(false);
+            } catch (IOException e) {
+                channel.truncate(position);
+                channel.position(position);
+                throw e;
+            }
+        } catch (IOException e) {
+            Bukkit.getLogger().severe("[头颅掉落] 写入数据文件失败: " + e.getMessage());
+            return false;
+        }
+
+        rows.forEach((uuid, row) -> apply(type, uuid, row));
+        records += rows.size();
+        compactIfNeeded();
+        return true;
+    }
+
+    /**
+     * 把一条记录应用到内存状态
+     */
+    private void apply(byte type, UUID uuid, Row row) {
+        Row previous = live.remove(uuid);
+        if (previous != null) {
+            byName.remove(nameKey(previous.name()), uuid);
+        }
+        if (type == ARCHIVED) {
+            archived.put(uuid, row);
+            index.remove(uuid);
+            return;
+        }
+        if (type == RESTORED) {
+            archived.remove(uuid);
+        }
+        live.put(uuid, row);
+        byName.put(nameKey(row.name()), uuid);
+        index.update(uuid, row.name(), row.score());
+    }
+
+    private void writeRecord(DataOutputStream target, byte type, UUID uuid, Row row) throws IOException {
+        scratch.reset();
+        scratchOut.writeByte(type);
+        scratchOut.writeLong(uuid.getMostSignificantBits());
+        scratchOut.writeLong(uuid.getLeastSignificantBits());
+        scratchOut.writeUTF(row.name() == null ? "" : row.name());
+        scratchOut.writeInt(row.score());
+        scratchOut.writeLong(row.lastUpdated());
+
+        byte[] payload = scratch.toByteArray();
+        crc.reset();
+        crc.update(payload, 0, payload.length);
+
+        target.writeInt(payload.length);
+        target.write(payload);
+        target.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * 重放数据文件
+     *
+     * @return 最后一条完整记录之后的位置
+     */
+    private long read() throws IOException {
+        long valid = 0L;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                byte[] payload;
+                int expected;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_SIZE) break;
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    expected = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+
+                crc.reset();
+                crc.update(payload, 0, payload.length);
+                if ((int) crc.getValue() != expected) break;
+
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                byte type = record.readByte();
+                UUID uuid = new UUID(record.readLong(), record.readLong());
+                Row row = new Row(record.readUTF(), record.readInt(), record.readLong());
+                if (type == LIVE || type == ARCHIVED || type == RESTORED) {
+                    apply(type, uuid, row);
+                }
+                records++;
+                valid += 8L + payload.length;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * 无效记录过多时重写数据文件（需持有锁）
+     */
+    private void compactIfNeeded() {
+        long current = live.size() + archived.size();
+        if (records < MIN_COMPACT_RECORDS || records <= current * 2) return;
+
+        File temp = temporaryFile();
+        try {
+            try (FileOutputStream stream = new FileOutputStream(temp)) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) Math.min(Integer.MAX_VALUE, current * 48));
+                DataOutputStream out = new DataOutputStream(bytes);
+                for (Map.Entry<UUID, Row> entry : archived.entrySet()) {
+                    writeRecord(out, ARCHIVED, entry.getKey(), entry.getValue());
+                }
+                for (Map.Entry<UUID, Row> entry : live.entrySet()) {
+                    writeRecord(out, LIVE, entry.getKey(), entry.getValue());
+                }
+                bytes.writeTo(stream);
+                stream.getFD().sync();
+            }
+
+            channel.close();
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            records = current;
+        } catch (IOException e) {
+            Bukkit.getLogger().severe("[头颅掉落] 压缩数据文件失败: " + e.getMessage());
+        } finally {
+            try {
+                if (!channel.isOpen()) {
+                    channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    channel.position(channel.size());
+                }
+            } catch (IOException e) {
+                Bukkit.getLogger().severe("[头颅掉落] 无法重新打开数据文件: " + e.getMessage());
+                channel = null;
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer source = ByteBuffer.wrap(bytes);
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    private File temporaryFile() {
+        return new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+    }
+
+    private static String nameKey(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    // endregion
+}
@@ -0,0 +1,37 @@
+package me.rrs.headdrop.database;
+
+import com.zaxxer.hikari.HikariConfig;
+
+import java.io.File;
+
+/**
+ * 嵌入式 H2 存储引擎
+ * 以 MySQL 兼容模式打开，与 MySQL 共用建表和 upsert 语句；表名小写、文本比较不区分大小写。
+ * MVStore 在后台合并写入，批量写入在一个事务中提交；
+ * 关闭 DB_CLOSE_ON_EXIT，由插件在关服写回后再关闭数据库。
+ */
+final class H2StorageEngine extends JdbcStorageEngine {
+
+    private final File file;
+    private final String username;
+    private final String password;
+
+    /**
+     * @param file 数据库文件（不含 .mv.db 后缀）
+     */
+    H2StorageEngine(File file, String username, String password, int poolSize, boolean convertUuids) {
+        super(SqlDialect.H2, poolSize, convertUuids);
+        this.file = file;
+        this.username = username == null ? "" : username;
+        this.password = password == null ? "" : password;
+    }
+
+    @Override
+    protected void configure(HikariConfig config) {
+        config.setDriverClassName("org.h2.Driver");
+        config.setJdbcUrl("jdbc:h2:file:" + file.getAbsolutePath()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_ON_EXIT=FALSE");
+        config.setUsername(username);
+        config.setPassword(password);
+    }
+}
@@ -0,0 +1,629 @@
+package me.rrs.headdrop.database;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.bukkit.Bukkit;
+
+import java.nio.ByteBuffer;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * 基于 JDBC 连接池的存储引擎
+ * 所有语句按 {@link SqlDialect} 生成，子类只负责驱动、连接地址和连接参数的调优。
+ */
+abstract class JdbcStorageEngine implements StorageEngine {
+
+    protected final SqlDialect dialect;
+    private final int poolSize;
+    private final boolean convertUuids;
+    private boolean binaryUuid;
+    private HikariDataSource dataSource;
+
+    /**
+     * @param dialect SQL 方言
+     * @param poolSize 连接池大小
+     * @param convertUuids 是否把已有的文本UUID转换为二进制
+     */
+    JdbcStorageEngine(SqlDialect dialect, int poolSize, boolean convertUuids) {
+        this.dialect = dialect;
+        this.poolSize = Math.max(1, poolSize);
+        this.convertUuids = convertUuids;
+    }
+
+    /**
+     * 设置驱动、连接地址和引擎相关的连接参数
+     *
+     * @param config 连接池配置
+     */
+    protected abstract void configure(HikariConfig config);
+
+    @Override
+    public String getName() {
+        return dialect.getDisplayName();
+    }
+
+    @Override
+    public void open() throws SQLException {
+        HikariConfig hikariConfig = new HikariConfig();
+        configure(hikariConfig);
+        hikariConfig.setMaximumPoolSize(poolSize);
+        hikariConfig.setConnectionTimeout(30000);
+        hikariConfig.setIdleTimeout(600000);
+        hikariConfig.setMaxLifetime(1800000);
+        hikariConfig.setLeakDetectionThreshold(2000);
+
+        this.dataSource = new HikariDataSource(hikariConfig);
+        try {
+            createTable();
+        } catch (SQLException e) {
+            // 结构不完整时不能进入就绪状态，由 Database 标记为失败
+            dataSource.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    /**
+     * 创建或升级数据表，按 schema_version 记录执行尚未执行的迁移
+     */
+    private void createTable() throws SQLException {
+        try {
+            SchemaMigrator migrator = new SchemaMigrator(dataSource, dialect);
+            migrator.migrate();
+            if (convertUuids) {
+                migrator.convertUuidsToBinary();
+            }
+            try (Connection connection = dataSource.getConnection()) {
+                binaryUuid = SchemaMigrator.isBinaryUuid(connection);
+            }
+        } catch (SQLException e) {
+            Bukkit.getLogger().severe("[头颅掉落] 数据库结构迁移失败！");
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * 按当前表结构绑定UUID：二进制列绑定16字节，文本列绑定字符串
+     */
+    private void setUuid(PreparedStatement statement, int index, UUID uuid) throws SQLException {
+        if (binaryUuid) {
+            statement.setBytes(index, uuidToBytes(uuid));
+        } else {
+            statement.setString(index, uuid.toString());
+        }
+    }
+
+    /**
+     * 从结果集读取UUID，兼容二进制和文本列
+     */
+    private UUID getUuid(ResultSet resultSet, String column) throws SQLException {
+        if (binaryUuid) {
+            byte[] bytes = resultSet.getBytes(column);
+            return bytes == null || bytes.length != 16 ? null : uuidFromBytes(bytes);
+        }
+        String value = resultSet.getString(column);
+        try {
+            return value == null ? null : UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static byte[] uuidToBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    static UUID uuidFromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    // region 积分
+
+    @Override
+    public OptionalInt getScore(UUID uuid) {
+        String query = "SELECT data FROM headdrop WHERE uuid = ?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            setUuid(statement, 1, uuid);
+            try (ResultSet result = statement.executeQuery()) {
+                return OptionalInt.of(result.next() ? result.getInt("data") : 0);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return OptionalInt.empty();
+        }
+    }
+
+    @Override
+    public OptionalInt getScoreByName(String name) {
+        String query = "SELECT data FROM headdrop WHERE " + dialect.nameEquals();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setString(1, name);
+            try (ResultSet result = statement.executeQuery()) {
+                return OptionalInt.of(result.next() ? result.getInt("data") : 0);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return OptionalInt.empty();
+        }
+    }
+
+    /**
+     * 单条语句完成，并发的增量不会互相覆盖
+     */
+    @Override
+    public boolean incrementScore(UUID uuid, String name, int delta) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(getIncrementScoreSQL())) {
+            statement.setString(1, name);
+            setUuid(statement, 2, uuid);
+            statement.setInt(3, delta);
+            statement.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * 所有增量作为一个批次在同一事务中写入，只提交一次
+     */
+    @Override
+    public boolean incrementScores(List<ScoreDelta> deltas) {
+        if (deltas.isEmpty()) return true;
+
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(getIncrementScoreSQL())) {
+                for (ScoreDelta delta : deltas) {
+                    statement.setString(1, delta.name());
+                    setUuid(statement, 2, delta.uuid());
+                    statement.setInt(3, delta.points());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+                return true;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private String getIncrementScoreSQL() {
+        return "INSERT INTO headdrop (name, uuid, data, last_updated) VALUES (?, ?, ?, " + dialect.now() + ")"
+                + dialect.upsert("uuid") + "name = " + dialect.excluded("name")
+                + ", data = data + " + dialect.excluded("data") + ", last_updated = " + dialect.now();
+    }
+
+    @Override
+    public boolean setScoreByName(UUID uuid, String name, int score) {
+        String selectSQL = "SELECT data FROM headdrop WHERE " + dialect.nameEquals();
+        String insertSQL = "INSERT INTO headdrop (name, uuid, data, last_updated) VALUES (?, ?, ?, " + dialect.now() + ")";
+        String updateSQL = "UPDATE headdrop SET data = ?, last_updated = " + dialect.now() + " WHERE " + dialect.nameEquals();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement selectStatement = connection.prepareStatement(selectSQL)) {
+
+            selectStatement.setString(1, name);
+            try (ResultSet resultSet = selectStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    try (PreparedStatement updateStatement = connection.prepareStatement(updateSQL)) {
+                        updateStatement.setInt(1, score);
+                        updateStatement.setString(2, name);
+                        updateStatement.executeUpdate();
+                    }
+                } else {
+                    try (PreparedStatement insertStatement = connection.prepareStatement(insertSQL)) {
+                        insertStatement.setString(1, name);
+                        setUuid(insertStatement, 2, uuid);
+                        insertStatement.setInt(3, score);
+                        insertStatement.executeUpdate();
+                    }
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // endregion
+
+    // region 排名
+
+    /**
+     * 由 data 降序索引完成排序
+     */
+    @Override
+    public List<LeaderboardEntry> getTop(int limit, int offset) {
+        List<LeaderboardEntry> entries = new ArrayList<>(Math.max(0, limit));
+        String query = "SELECT name, data FROM headdrop ORDER BY data DESC LIMIT ? OFFSET ?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setInt(1, limit);
+            statement.setInt(2, Math.max(0, offset));
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    entries.add(new LeaderboardEntry(result.getString("name"), result.getInt("data")));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return entries;
+    }
+
+    /**
+     * UUID无效的行会被跳过
+     */
+    @Override
+    public void forEachScore(LeaderboardIndex.ScoreConsumer consumer) {
+        String query = "SELECT name, uuid, data FROM headdrop";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setFetchSize(1000);
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    UUID uuid = getUuid(result, "uuid");
+                    if (uuid != null) {
+                        consumer.accept(uuid, result.getString("name"), result.getInt("data"));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public int getRank(UUID uuid) {
+        String scoreQuery = "SELECT data FROM headdrop WHERE uuid = ?";
+        String rankQuery = "SELECT COUNT(*) FROM headdrop WHERE data > ?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement scoreStatement = connection.prepareStatement(scoreQuery);
+             PreparedStatement rankStatement = connection.prepareStatement(rankQuery)) {
+            setUuid(scoreStatement, 1, uuid);
+            int score;
+            try (ResultSet result = scoreStatement.executeQuery()) {
+                if (!result.next()) return 0;
+                score = result.getInt("data");
+            }
+            rankStatement.setInt(1, score);
+            try (ResultSet result = rankStatement.executeQuery()) {
+                return result.next() ? result.getInt(1) + 1 : 0;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    @Override
+    public int getPlayerCount() {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM headdrop");
+             ResultSet result = statement.executeQuery()) {
+            return result.next() ? result.getInt(1) : 0;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    // endregion
+
+    // region 保留
+
+    /**
+     * 每行在同一事务中从主表删除并累加到归档；删除时再次检查活跃时间，
+     * 已有归档（恢复前又被归档）时积分累加到原归档上
+     */
+    @Override
+    public List<UUID> archiveInactive(int days, int limit) {
+        String expired = dialect.olderThanDays("last_updated");
+        String selectSQL = "SELECT name, uuid, data, last_updated FROM headdrop WHERE " + expired + " LIMIT ?";
+        String deleteSQL = "DELETE FROM headdrop WHERE uuid = ? AND " + expired;
+        String archiveSQL = "INSERT INTO headdrop_archive (uuid, name, data, last_updated) VALUES (?, ?, ?, ?)"
+                + dialect.upsert("uuid") + "name = " + dialect.excluded("name")
+                + ", data = data + " + dialect.excluded("data") + ", last_updated = " + dialect.excluded("last_updated")
+                + ", archived_at = " + dialect.now();
+
+        List<UUID> archived = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement select = connection.prepareStatement(selectSQL);
+                 PreparedStatement delete = connection.prepareStatement(deleteSQL);
+                 PreparedStatement archive = connection.prepareStatement(archiveSQL)) {
+                // 先读出整批再写入，避免在同一连接上边遍历边修改
+                record Row(UUID uuid, String name, int data, Object lastUpdated) {
+                }
+                List<Row> rows = new ArrayList<>(limit);
+                select.setInt(1, days);
+                select.setInt(2, limit);
+                try (ResultSet result = select.executeQuery()) {
+                    while (result.next()) {
+                        UUID uuid = getUuid(result, "uuid");
+                        if (uuid == null) continue;
+                        rows.add(new Row(uuid, result.getString("name"), result.getInt("data"),
+                                dialect == SqlDialect.SQLITE ? result.getString("last_updated") : result.getTimestamp("last_updated")));
+                    }
+                }
+
+                for (Row row : rows) {
+                    UUID uuid = row.uuid();
+                    setUuid(delete, 1, uuid);
+                    delete.setInt(2, days);
+                    // 读出后又重新活跃的玩家不会被删除，也不写归档
+                    if (delete.executeUpdate() == 0) continue;
+
+                    archive.setBytes(1, uuidToBytes(uuid));
+                    archive.setString(2, row.name());
+                    archive.setInt(3, row.data());
+                    archive.setObject(4, row.lastUpdated());
+                    archive.executeUpdate();
+                    archived.add(uuid);
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                archived.clear();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return archived;
+    }
+
+    @Override
+    public boolean restoreArchived(UUID uuid) {
+        String selectSQL = "SELECT name, data FROM headdrop_archive WHERE uuid = ?";
+        String mergeSQL = "UPDATE headdrop SET data = data + ?, last_updated = " + dialect.now() + " WHERE uuid = ?";
+        String insertSQL = "INSERT INTO headdrop (name, uuid, data, last_updated) VALUES (?, ?, ?, " + dialect.now() + ")";
+        String deleteSQL = "DELETE FROM headdrop_archive WHERE uuid = ?";
+        byte[] key = uuidToBytes(uuid);
+
+        try (Connection connection = dataSource.getConnection()) {
+            String name;
+            int data;
+            try (PreparedStatement select = connection.prepareStatement(selectSQL)) {
+                select.setBytes(1, key);
+                try (ResultSet result = select.executeQuery()) {
+                    // 绝大多数玩家没有归档，只有这一次主键查询
+                    if (!result.next()) return false;
+                    name = result.getString("name");
+                    data = result.getInt("data");
+                }
+            }
+
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement merge = connection.prepareStatement(mergeSQL);
+                 PreparedStatement insert = connection.prepareStatement(insertSQL);
+                 PreparedStatement delete = connection.prepareStatement(deleteSQL)) {
+                // 归档后又写回过积分时主表已有新行，把归档的积分加到新行上
+                merge.setInt(1, data);
+                setUuid(merge, 2, uuid);
+                if (merge.executeUpdate() == 0) {
+                    insert.setString(1, name);
+                    setUuid(insert, 2, uuid);
+                    insert.setInt(3, data);
+                    insert.executeUpdate();
+                }
+                delete.setBytes(1, key);
+                delete.executeUpdate();
+                connection.commit();
+                return true;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    // endregion
+
+    // region 生物统计
+
+    /**
+     * 所有组合在同一事务中写入
+     */
+    @Override
+    public boolean incrementKills(Map<KillCounter.Key, Long> counts) {
+        String sql = "INSERT INTO headdrop_kills (player_uuid, entity_type, count) VALUES (?, ?, ?)"
+                + dialect.upsert("player_uuid, entity_type") + "count = count + " + dialect.excluded("count");
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (Map.Entry<KillCounter.Key, Long> entry : counts.entrySet()) {
+                    statement.setBytes(1, uuidToBytes(entry.getKey().player()));
+                    statement.setString(2, entry.getKey().entityType());
+                    statement.setLong(3, entry.getValue());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+                return true;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    @Override
+    public List<KillCount> getTopByEntity(String entityType, int limit, int offset) {
+        List<KillCount> counts = new ArrayList<>(Math.max(0, limit));
+        String query = "SELECT player_uuid, count FROM headdrop_kills WHERE entity_type = ? "
+                + "ORDER BY count DESC LIMIT ? OFFSET ?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setString(1, entityType);
+            statement.setInt(2, limit);
+            statement.setInt(3, Math.max(0, offset));
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    counts.add(new KillCount(uuidFromBytes(result.getBytes("player_uuid")), entityType, result.getLong("count")));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getKillsByPlayer(UUID uuid) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        String query = "SELECT entity_type, count FROM headdrop_kills WHERE player_uuid = ? ORDER BY count DESC";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setBytes(1, uuidToBytes(uuid));
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    counts.put(result.getString("entity_type"), result.getLong("count"));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return counts;
+    }
+
+    @Override
+    public long getTotalKills(String entityType) {
+        String query = "SELECT SUM(count) FROM headdrop_kills WHERE entity_type = ?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setString(1, entityType);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() ? result.getLong(1) : 0L;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0L;
+    }
+
+    // endregion
+
+    // region 时间窗口
+
+    /**
+     * 所有增量在同一事务中写入
+     */
+    @Override
+    public boolean addToBuckets(List<ScoreDelta> deltas, LocalDate date) {
+        if (deltas.isEmpty()) return true;
+
+        String sql = "INSERT INTO headdrop_buckets (granularity, bucket_start, player_uuid, name, points) VALUES (?, ?, ?, ?, ?)"
+                + dialect.upsert("granularity, bucket_start, player_uuid") + "name = " + dialect.excluded("name")
+                + ", points = points + " + dialect.excluded("points");
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (TimeWindow window : TimeWindow.values()) {
+                    long bucketStart = window.bucketStart(date);
+                    for (ScoreDelta delta : deltas) {
+                        statement.setInt(1, window.getId());
+                        statement.setLong(2, bucketStart);
+                        statement.setBytes(3, uuidToBytes(delta.uuid()));
+                        statement.setString(4, delta.name());
+                        statement.setInt(5, delta.points());
+                        statement.addBatch();
+                    }
+                }
+                statement.executeBatch();
+                connection.commit();
+                return true;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * 只扫描该窗口所在的桶
+     */
+    @Override
+    public List<LeaderboardEntry> getWindowTop(TimeWindow window, LocalDate date, int limit, int offset) {
+        List<LeaderboardEntry> entries = new ArrayList<>(Math.max(0, limit));
+        String query = "SELECT name, points FROM headdrop_buckets WHERE granularity = ? AND bucket_start = ? "
+                + "ORDER BY points DESC LIMIT ? OFFSET ?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setInt(1, window.getId());
+            statement.setLong(2, window.bucketStart(date));
+            statement.setInt(3, limit);
+            statement.setInt(4, Math.max(0, offset));
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    entries.add(new LeaderboardEntry(result.getString("name"), result.getInt("points")));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return entries;
+    }
+
+    @Override
+    public int pruneBuckets(TimeWindow window, long beforeBucketStart) {
+        String sql = "DELETE FROM headdrop_buckets WHERE granularity = ? AND bucket_start < ?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, window.getId());
+            statement.setLong(2, beforeBucketStart);
+            return statement.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    // endregion
+}
@@ -0,0 +1,13 @@
+package me.rrs.headdrop.database;
+
+import java.util.UUID;
+
+/**
+ * 按生物类型统计的头颅数量
+ *
+ * @param player 玩家UUID
+ * @param entityType 生物类型
+ * @param count 数量
+ */
+public record KillCount(UUID player, String entityType, long count) {
+}
@@ -0,0 +1,92 @@
+package me.rrs.headdrop.database;
+
+import me.rrs.headdrop.HeadDrop;
+import me.rrs.headdrop.drop.DropSettings;
+import me.rrs.headdrop.util.TaskScheduler;
+import org.bukkit.entity.EntityType;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按生物类型统计头颅掉落
+ * 击杀时只在内存中按 (玩家, 生物类型) 累加，定时写回时每个组合只执行一次原子累加，
+ * 刷怪塔的大量击杀会被合并成一条语句。
+ */
+public final class KillCounter {
+
+    private static final String FLUSH_KEY = "kill-flush";
+
+    private final Map<Key, Long> pending = new ConcurrentHashMap<>();
+    private TaskScheduler.Task flushTask;
+
+    /**
+     * 启动定时写回
+     *
+     * @param intervalSeconds 写回间隔（秒）
+     */
+    public void start(int intervalSeconds) {
+        long period = Math.max(1, intervalSeconds) * 20L;
+        flushTask = TaskScheduler.runAsyncTimer(this::scheduleFlush, period, period);
+    }
+
+    /**
+     * 停止定时写回并同步写入所有增量（插件禁用时调用）
+     */
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        if (HeadDrop.getInstance().getDatabase().isReady()) {
+            flush();
+        }
+    }
+
+    /**
+     * 记录一次头颅掉落
+     *
+     * @param player 玩家UUID
+     * @param type 生物类型
+     */
+    public void record(UUID player, EntityType type) {
+        if (!DropSettings.current().isDatabaseEnabled()) {
+            return;
+        }
+        pending.merge(new Key(player, type.name()), 1L, Long::sum);
+    }
+
+    private void scheduleFlush() {
+        if (!pending.isEmpty()) {
+            HeadDrop.getInstance().getDatabase().getExecutor().execute(FLUSH_KEY, this::flush);
+        }
+    }
+
+    private synchronized void flush() {
+        if (pending.isEmpty()) return;
+
+        // 逐个原子地取出增量，取出后到达的击杀会留到下一次写回
+        Map<Key, Long> batch = new HashMap<>();
+        for (Key key : pending.keySet()) {
+            Long count = pending.remove(key);
+            if (count != null) batch.put(key, count);
+        }
+        if (batch.isEmpty()) return;
+
+        if (!HeadDrop.getInstance().getDatabase().incrementKills(batch)) {
+            // 写入失败时放回，下一次重试
+            batch.forEach((key, count) -> pending.merge(key, count, Long::sum));
+        }
+    }
+
+    /**
+     * 玩家与生物类型的组合
+     *
+     * @param player 玩家UUID
+     * @param entityType 生物类型
+     */
+    public record Key(UUID player, String entityType) {
+    }
+}
@@ -0,0 +1,10 @@
+package me.rrs.headdrop.database;
+
+/**
+ * 排行榜条目
+ *
+ * @param name 玩家名称
+ * @param score 头颅数量
+ */
+public record LeaderboardEntry(String name, int score) {
+}
@@ -0,0 +1,312 @@
+package me.rrs.headdrop.database;
+
+import org.bukkit.Bukkit;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 内存排行榜索引
+ * 以 (积分降序, UUID) 为键的顺序统计树堆（treap），每个节点记录子树大小，
+ * 排名、前N名和玩家附近的名次都可以在 O(log n) 内得到，不需要查询数据库。
+ * 启动时从数据库异步加载，之后由积分缓存在积分变化时增量更新。
+ */
+public final class LeaderboardIndex {
+
+    private final Map<UUID, Node> nodes = new HashMap<>();
+    private Node root;
+    private volatile boolean ready;
+
+    /**
+     * 从数据库加载全部积分
+     * 加载期间已经由积分缓存写入的玩家以缓存为准，不会被旧数据覆盖。
+     *
+     * @param database 数据库
+     */
+    public void load(Database database) {
+        long start = System.currentTimeMillis();
+        database.forEachScore((uuid, name, score) -> {
+            synchronized (this) {
+                if (!nodes.containsKey(uuid)) {
+                    insert(new Node(uuid, name, score));
+                }
+            }
+        });
+        ready = true;
+        Bukkit.getLogger().info("[头颅掉落] 排行榜索引已加载 " + size() + " 名玩家，耗时 "
+                + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * 索引是否已完成加载
+     *
+     * @return 是否可用
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 更新玩家积分
+     *
+     * @param uuid 玩家UUID
+     * @param name 玩家名称
+     * @param score 当前积分
+     */
+    public synchronized void update(UUID uuid, String name, int score) {
+        Node node = nodes.get(uuid);
+        if (node != null) {
+            if (node.score == score) {
+                node.name = name;
+                return;
+            }
+            remove(node);
+        }
+        insert(new Node(uuid, name, score));
+    }
+
+    /**
+     * 移除玩家（玩家被归档时调用）
+     *
+     * @param uuid 玩家UUID
+     */
+    public synchronized void remove(UUID uuid) {
+        Node node = nodes.get(uuid);
+        if (node != null) {
+            remove(node);
+        }
+    }
+
+    /**
+     * 获取玩家排名（积分严格高于该玩家的人数加一，与数据库查询一致）
+     *
+     * @param uuid 玩家UUID
+     * @return 排名，不在索引中时返回0
+     */
+    public synchronized int getRank(UUID uuid) {
+        Node node = nodes.get(uuid);
+        return node == null ? 0 : countHigher(node.score) + 1;
+    }
+
+    /**
+     * 获取玩家积分
+     *
+     * @param uuid 玩家UUID
+     * @return 积分，不在索引中时返回0
+     */
+    public synchronized int getScore(UUID uuid) {
+        Node node = nodes.get(uuid);
+        return node == null ? 0 : node.score;
+    }
+
+    /**
+     * 按积分从高到低获取一段排行榜
+     *
+     * @param limit 条目数
+     * @param offset 跳过的条目数
+     * @return 排行榜条目
+     */
+    public synchronized List<LeaderboardEntry> getTop(int limit, int offset) {
+        int from = Math.max(0, offset);
+        int to = Math.min(size(root), from + Math.max(0, limit));
+        List<LeaderboardEntry> entries = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            Node node = select(i);
+            entries.add(new LeaderboardEntry(node.name, node.score));
+        }
+        return entries;
+    }
+
+    /**
+     * 获取玩家前后若干名的条目（包含玩家自己）
+     *
+     * @param uuid 玩家UUID
+     * @param radius 前后各取的条目数
+     * @return 排行榜条目，不在索引中时为空
+     */
+    public synchronized List<LeaderboardEntry> getAround(UUID uuid, int radius) {
+        Node node = nodes.get(uuid);
+        if (node == null) return Collections.emptyList();
+
+        int from = position(node) - radius;
+        return getTop(2 * radius + 1 + Math.min(0, from), from);
+    }
+
+    /**
+     * 获取玩家在排行榜中的位置（积分相同时按UUID排序）
+     *
+     * @param uuid 玩家UUID
+     * @return 从0开始的位置，不在索引中时返回-1
+     */
+    public synchronized int getPosition(UUID uuid) {
+        Node node = nodes.get(uuid);
+        return node == null ? -1 : position(node);
+    }
+
+    /**
+     * 获取索引中的玩家数
+     *
+     * @return 玩家数
+     */
+    public synchronized int size() {
+        return size(root);
+    }
+
+    // region 树堆操作
+
+    private void insert(Node node) {
+        nodes.put(node.uuid, node);
+        Node[] parts = split(root, node);
+        root = merge(merge(parts[0], node), parts[1]);
+    }
+
+    private void remove(Node node) {
+        nodes.remove(node.uuid);
+        root = remove(root, node);
+    }
+
+    private static Node remove(Node current, Node target) {
+        if (current == null) return null;
+        if (current == target) return merge(current.left, current.right);
+
+        if (compare(target, current) < 0) {
+            current.left = remove(current.left, target);
+        } else {
+            current.right = remove(current.right, target);
+        }
+        current.update();
+        return current;
+    }
+
+    /**
+     * 按键拆分为小于 key 和不小于 key 的两棵树
+     */
+    private static Node[] split(Node current, Node key) {
+        if (current == null) return new Node[2];
+
+        if (compare(current, key) < 0) {
+            Node[] parts = split(current.right, key);
+            current.right = parts[0];
+            current.update();
+            parts[0] = current;
+            return parts;
+        }
+        Node[] parts = split(current.left, key);
+        current.left = parts[1];
+        current.update();
+        parts[1] = current;
+        return parts;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    /**
+     * 获取第 index 个节点（从0开始）
+     */
+    private Node select(int index) {
+        Node current = root;
+        while (current != null) {
+            int leftSize = size(current.left);
+            if (index < leftSize) {
+                current = current.left;
+            } else if (index == leftSize) {
+                return current;
+            } else {
+                index -= leftSize + 1;
+                current = current.right;
+            }
+        }
+        throw new IndexOutOfBoundsException();
+    }
+
+    /**
+     * 获取节点在排行榜中的位置（从0开始）
+     */
+    private int position(Node target) {
+        int position = 0;
+        Node current = root;
+        while (current != null) {
+            int cmp = compare(target, current);
+            if (cmp < 0) {
+                current = current.left;
+            } else if (cmp == 0) {
+                return position + size(current.left);
+            } else {
+                position += size(current.left) + 1;
+                current = current.right;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * 统计积分严格高于 score 的节点数
+     */
+    private int countHigher(int score) {
+        int count = 0;
+        Node current = root;
+        while (current != null) {
+            if (current.score > score) {
+                count += size(current.left) + 1;
+                current = current.right;
+            } else {
+                current = current.left;
+            }
+        }
+        return count;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * 积分高的在前，积分相同时按UUID排序
+     */
+    private static int compare(Node a, Node b) {
+        int cmp = Integer.compare(b.score, a.score);
+        return cmp != 0 ? cmp : a.uuid.compareTo(b.uuid);
+    }
+
+    // endregion
+
+    /**
+     * 数据库行回调
+     */
+    @FunctionalInterface
+    public interface ScoreConsumer {
+        void accept(UUID uuid, String name, int score);
+    }
+
+    private static final class Node {
+        private final UUID uuid;
+        private String name;
+        private final int score;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        private Node(UUID uuid, String name, int score) {
+            this.uuid = uuid;
+            this.name = name;
+            this.score = score;
+        }
+
+        private void update() {
+            size = 1 + LeaderboardIndex.size(left) + LeaderboardIndex.size(right);
+        }
+    }
+}
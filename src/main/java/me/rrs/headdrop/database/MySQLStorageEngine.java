@@ -0,0 +1,34 @@
+package me.rrs.headdrop.database;
+
+import com.zaxxer.hikari.HikariConfig;
+
+/**
+ * MySQL / MariaDB 存储引擎
+ * 开启 rewriteBatchedStatements 后驱动把批量的 upsert 合并为一条多行语句，一次写回只需要一次往返。
+ * MariaDB 使用服务器自带的 MySQL 驱动连接，jdbc:mariadb: 地址会被改写为 jdbc:mysql:。
+ */
+final class MySQLStorageEngine extends JdbcStorageEngine {
+
+    private final String url;
+    private final String username;
+    private final String password;
+
+    MySQLStorageEngine(String url, String username, String password, int poolSize, boolean convertUuids) {
+        super(SqlDialect.MYSQL, poolSize, convertUuids);
+        this.url = url.replace("jdbc:mariadb:", "jdbc:mysql:");
+        this.username = username;
+        this.password = password;
+    }
+
+    @Override
+    protected void configure(HikariConfig config) {
+        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", "250");
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+    }
+}
@@ -0,0 +1,78 @@
+package me.rrs.headdrop.database;
+
+import me.rrs.headdrop.HeadDrop;
+import me.rrs.headdrop.util.TaskScheduler;
+import org.bukkit.Bukkit;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 后台数据保留任务
+ * 每秒在数据库线程上把超过保留天数未活跃的玩家分批移入 headdrop_archive，
+ * 每批单独提交，每秒移动的行数不超过配置的速率；没有可归档的行时休眠一段时间。
+ * 归档的玩家再次获得积分时由积分缓存恢复到主表。
+ */
+public final class RetentionJob {
+
+    private static final String JOB_KEY = "retention";
+    private static final long IDLE_MILLIS = 60L * 60L * 1000L;
+
+    private final Database database;
+    private final int days;
+    private final int rowsPerSecond;
+    private final int chunkSize;
+    private TaskScheduler.Task task;
+    private volatile long nextRunAt;
+    private long archivedTotal;
+
+    public RetentionJob(Database database, int days, int rowsPerSecond, int chunkSize) {
+        this.database = database;
+        this.days = days;
+        this.rowsPerSecond = Math.max(1, rowsPerSecond);
+        this.chunkSize = Math.max(1, Math.min(chunkSize, this.rowsPerSecond));
+    }
+
+    /**
+     * 启动任务（启动后等待一分钟，避开服务器启动高峰）
+     */
+    public void start() {
+        if (days <= 0) return;
+        task = TaskScheduler.runAsyncTimer(this::tick, 20L * 60, 20L);
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private void tick() {
+        if (System.currentTimeMillis() < nextRunAt) return;
+        // 上一批尚未执行完时合并，不会堆积
+        database.getExecutor().execute(JOB_KEY, this::runBatch);
+    }
+
+    private void runBatch() {
+        int budget = rowsPerSecond;
+        while (budget > 0) {
+            int limit = Math.min(chunkSize, budget);
+            List<UUID> archived = database.archiveInactive(days, limit);
+            for (UUID uuid : archived) {
+                HeadDrop.getInstance().getLeaderboard().remove(uuid);
+            }
+            budget -= archived.size();
+            archivedTotal += archived.size();
+
+            if (archived.size() < limit) {
+                if (archivedTotal > 0) {
+                    Bukkit.getLogger().info("[头颅掉落] 已归档 " + archivedTotal + " 名超过 " + days + " 天未活跃的玩家");
+                    archivedTotal = 0;
+                }
+                nextRunAt = System.currentTimeMillis() + IDLE_MILLIS;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package me.rrs.headdrop.database;
+
+import com.zaxxer.hikari.HikariConfig;
+
+import java.io.File;
+
+/**
+ * SQLite 存储引擎
+ * 使用 WAL 日志，读取不阻塞写入；synchronous=FULL 保证提交返回时已经刷盘，
+ * 积分缓存在提交成功后就会压缩掉落日志，不能依赖日志补回断电时丢失的提交。
+ * SQLite 同一时间只允许一个写事务，批量写入在一个事务中完成，并发写入时按 busy_timeout 等待而不是立即失败。
+ */
+final class SQLiteStorageEngine extends JdbcStorageEngine {
+
+    private final File file;
+
+    SQLiteStorageEngine(File file, int poolSize, boolean convertUuids) {
+        super(SqlDialect.SQLITE, poolSize, convertUuids);
+        this.file = file;
+    }
+
+    @Override
+    protected void configure(HikariConfig config) {
+        config.setDriverClassName("org.sqlite.JDBC");
+        config.setJdbcUrl("jdbc:sqlite:" + file.getAbsolutePath());
+        config.addDataSourceProperty("journal_mode", "WAL");
+        config.addDataSourceProperty("synchronous", "FULL");
+        config.addDataSourceProperty("busy_timeout", "5000");
+    }
+}
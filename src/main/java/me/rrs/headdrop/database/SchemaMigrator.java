@@ -0,0 +1,575 @@
+package me.rrs.headdrop.database;
+
+import org.bukkit.Bukkit;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.*;
+
+/**
+ * 数据库结构迁移
+ * 已执行的版本记录在 schema_version 表中，启动时按顺序执行尚未执行的迁移。
+ * 每个迁移都需要能在旧版本插件创建的表上重复执行。
+ * 每个迁移和版本记录在同一事务中提交，但只对 SQLite 和 H2 有效：MySQL 的 DDL 会隐式提交，
+ * 中途失败时已执行的语句不会回滚，因此 MySQL 上的每一步都必须先检查结构再修改，重启后可以从中断处继续。
+ */
+final class SchemaMigrator {
+
+    @FunctionalInterface
+    interface Step {
+        void apply(Connection connection, SqlDialect dialect) throws SQLException;
+    }
+
+    record Migration(int version, String description, Step step) {
+    }
+
+    private final DataSource dataSource;
+    private final SqlDialect dialect;
+    private final List<Migration> migrations = new ArrayList<>();
+
+    SchemaMigrator(DataSource dataSource, SqlDialect dialect) {
+        this.dataSource = dataSource;
+        this.dialect = dialect;
+
+        migrations.add(new Migration(1, "创建 headdrop 表", SchemaMigrator::createBaseTable));
+        migrations.add(new Migration(2, "uuid 唯一索引", SchemaMigrator::createUniqueUuidIndex));
+        migrations.add(new Migration(3, "name 不区分大小写索引", (connection, type) -> createIndex(connection,
+                "idx_headdrop_name", type == SqlDialect.SQLITE ? "headdrop (name COLLATE NOCASE)" : "headdrop (name)")));
+        migrations.add(new Migration(4, "data 降序索引", (connection, type) -> createIndex(connection,
+                "idx_headdrop_data", "headdrop (data DESC)")));
+        migrations.add(new Migration(5, "按生物类型统计表", SchemaMigrator::createKillsTable));
+        migrations.add(new Migration(6, "按时间分桶的积分表", SchemaMigrator::createBucketsTable));
+        migrations.add(new Migration(7, "归档表和活跃时间索引", SchemaMigrator::createArchiveTable));
+    }
+
+    /**
+     * 添加迁移，版本号必须大于已有的迁移
+     *
+     * @param migration 迁移
+     */
+    void add(Migration migration) {
+        if (!migrations.isEmpty() && migrations.get(migrations.size() - 1).version() >= migration.version()) {
+            throw new IllegalArgumentException("迁移版本必须递增: " + migration.version());
+        }
+        migrations.add(migration);
+    }
+
+    /**
+     * 执行所有尚未执行的迁移
+     *
+     * @return 当前结构版本
+     */
+    int migrate() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            createVersionTable(connection);
+            int current = currentVersion(connection);
+
+            for (Migration migration : migrations) {
+                if (migration.version() <= current) continue;
+
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try {
+                    migration.step().apply(connection, dialect);
+                    recordVersion(connection, migration);
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw new SQLException("数据库迁移 " + migration.version() + " (" + migration.description() + ") 失败", e);
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+
+                current = migration.version();
+                Bukkit.getLogger().info("[头颅掉落] 数据库已迁移到版本 " + current + ": " + migration.description());
+            }
+            return current;
+        }
+    }
+
+    private void createVersionTable(Connection connection) throws SQLException {
+        String sql = dialect == SqlDialect.SQLITE
+                ? "CREATE TABLE IF NOT EXISTS schema_version (version INTEGER PRIMARY KEY, description TEXT, "
+                + "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)"
+                : "CREATE TABLE IF NOT EXISTS schema_version (version INT PRIMARY KEY, description VARCHAR(128), "
+                + "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)";
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(sql);
+        }
+    }
+
+    private static int currentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void recordVersion(Connection connection, Migration migration) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+            statement.setInt(1, migration.version());
+            statement.setString(2, migration.description());
+            statement.executeUpdate();
+        }
+    }
+
+    // region 迁移
+
+    private static void createBaseTable(Connection connection, SqlDialect dialect) throws SQLException {
+        String sql;
+        if (dialect == SqlDialect.SQLITE) {
+            sql = "CREATE TABLE IF NOT EXISTS headdrop ("
+                    + "name TEXT, "
+                    + "uuid TEXT, "
+                    + "data INTEGER, "
+                    + "last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+                    + "PRIMARY KEY (name, uuid)"
+                    + ");";
+        } else {
+            sql = "CREATE TABLE IF NOT EXISTS headdrop ("
+                    + "name VARCHAR(16), "
+                    + "uuid VARCHAR(36), "
+                    + "data INT, "
+                    + "last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP, "
+                    + "PRIMARY KEY (name, uuid)"
+                    + ");";
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(sql);
+        }
+
+        // 早期版本的 SQLite 表没有 last_updated 列；SQLite 添加列时不允许非常量默认值，添加后再补上当前时间
+        if (dialect == SqlDialect.SQLITE && !columns(connection, "headdrop").contains("last_updated")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("ALTER TABLE headdrop ADD COLUMN last_updated TIMESTAMP");
+                statement.executeUpdate("UPDATE headdrop SET last_updated = CURRENT_TIMESTAMP WHERE last_updated IS NULL");
+            }
+        }
+    }
+
+    /**
+     * incrementScore 依赖 uuid 上的唯一索引；旧表的主键是 (name, uuid)，
+     * 同一 uuid 可能因改名留下多行，建索引前只保留积分最高的一行。
+     */
+    private static void createUniqueUuidIndex(Connection connection, SqlDialect dialect) throws SQLException {
+        if (uniqueIndexColumns(connection, "headdrop").contains(List.of("uuid"))) return;
+
+        removeDuplicateUuids(connection);
+        createIndex(connection, "idx_headdrop_uuid", "headdrop (uuid)", true);
+    }
+
+    private static void removeDuplicateUuids(Connection connection) throws SQLException {
+        List<String> duplicates = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT uuid FROM headdrop WHERE uuid IS NOT NULL GROUP BY uuid HAVING COUNT(*) > 1")) {
+            while (rs.next()) {
+                duplicates.add(rs.getString("uuid"));
+            }
+        }
+        if (duplicates.isEmpty()) return;
+
+        String selectSQL = "SELECT name FROM headdrop WHERE uuid = ? ORDER BY data DESC, last_updated DESC";
+        String deleteSQL = "DELETE FROM headdrop WHERE uuid = ? AND name = ?";
+        try (PreparedStatement select = connection.prepareStatement(selectSQL);
+             PreparedStatement delete = connection.prepareStatement(deleteSQL)) {
+            for (String uuid : duplicates) {
+                select.setString(1, uuid);
+                try (ResultSet rs = select.executeQuery()) {
+                    boolean first = true;
+                    while (rs.next()) {
+                        if (first) {
+                            first = false;
+                            continue;
+                        }
+                        delete.setString(1, uuid);
+                        delete.setString(2, rs.getString("name"));
+                        delete.addBatch();
+                    }
+                }
+            }
+            delete.executeBatch();
+        }
+        Bukkit.getLogger().warning("[头颅掉落] 已合并 " + duplicates.size() + " 个重复的玩家UUID记录");
+    }
+
+    /**
+     * 新表直接以16字节存储UUID；(entity_type, count) 索引用于按生物类型排行
+     */
+    private static void createKillsTable(Connection connection, SqlDialect dialect) throws SQLException {
+        String sql = dialect == SqlDialect.SQLITE
+                ? "CREATE TABLE IF NOT EXISTS headdrop_kills ("
+                + "player_uuid BLOB NOT NULL, "
+                + "entity_type TEXT NOT NULL, "
+                + "count INTEGER NOT NULL DEFAULT 0, "
+                + "PRIMARY KEY (player_uuid, entity_type))"
+                : "CREATE TABLE IF NOT EXISTS headdrop_kills ("
+                + "player_uuid BINARY(16) NOT NULL, "
+                + "entity_type VARCHAR(64) NOT NULL, "
+                + "count BIGINT NOT NULL DEFAULT 0, "
+                + "PRIMARY KEY (player_uuid, entity_type))";
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(sql);
+        }
+        createIndex(connection, "idx_headdrop_kills_type", "headdrop_kills (entity_type, count DESC)");
+    }
+
+    /**
+     * 主键以 (粒度, 起始日) 开头，查询某个窗口时只扫描该窗口的行；
+     * 名称冗余存储在桶中，排行榜查询不需要关联主表
+     */
+    private static void createBucketsTable(Connection connection, SqlDialect dialect) throws SQLException {
+        String sql = dialect == SqlDialect.SQLITE
+                ? "CREATE TABLE IF NOT EXISTS headdrop_buckets ("
+                + "granularity INTEGER NOT NULL, "
+                + "bucket_start INTEGER NOT NULL, "
+                + "player_uuid BLOB NOT NULL, "
+                + "name TEXT, "
+                + "points INTEGER NOT NULL DEFAULT 0, "
+                + "PRIMARY KEY (granularity, bucket_start, player_uuid))"
+                : "CREATE TABLE IF NOT EXISTS headdrop_buckets ("
+                + "granularity TINYINT NOT NULL, "
+                + "bucket_start INT NOT NULL, "
+                + "player_uuid BINARY(16) NOT NULL, "
+                + "name VARCHAR(16), "
+                + "points INT NOT NULL DEFAULT 0, "
+                + "PRIMARY KEY (granularity, bucket_start, player_uuid))";
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(sql);
+        }
+        createIndex(connection, "idx_headdrop_buckets_top", "headdrop_buckets (granularity, bucket_start, points DESC)");
+    }
+
+    /**
+     * 归档表只按主键访问；主表的 last_updated 索引用于保留任务按批查找过期的行
+     */
+    private static void createArchiveTable(Connection connection, SqlDialect dialect) throws SQLException {
+        String sql = dialect == SqlDialect.SQLITE
+                ? "CREATE TABLE IF NOT EXISTS headdrop_archive ("
+                + "uuid BLOB PRIMARY KEY, "
+                + "name TEXT, "
+                + "data INTEGER, "
+                + "last_updated TIMESTAMP, "
+                + "archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)"
+                : "CREATE TABLE IF NOT EXISTS headdrop_archive ("
+                + "uuid BINARY(16) PRIMARY KEY, "
+                + "name VARCHAR(16), "
+                + "data INT, "
+                + "last_updated TIMESTAMP NULL, "
+                + "archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)";
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(sql);
+        }
+        createIndex(connection, "idx_headdrop_last_updated", "headdrop (last_updated)");
+    }
+
+    // endregion
+
+    // region 二进制UUID
+
+    private static final int UUID_BATCH_SIZE = 1000;
+    private static final int MAX_LOGGED_NAMES = 100;
+
+    /**
+     * uuid 列是否已是二进制类型
+     *
+     * @param connection 连接
+     * @return 是否为二进制
+     */
+    static boolean isBinaryUuid(Connection connection) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getColumns(connection.getCatalog(), schema(connection), "headdrop", null)) {
+            while (rs.next()) {
+                if ("uuid".equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                    String type = rs.getString("TYPE_NAME").toUpperCase(Locale.ROOT);
+                    return type.contains("BLOB") || type.contains("BINARY");
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 把 uuid 列从字符串转换为16字节二进制
+     * 先在新列 uuid_bin 中分批写入转换结果，每批单独提交，中断后重启会从未转换的行继续；
+     * 全部转换后再用新列替换旧列并重建索引。该转换不可逆。
+     * uuid 为空或无法解析的行不会被删除，而是连同原始内容移到 headdrop_invalid_uuid 表中。
+     */
+    void convertUuidsToBinary() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            if (isBinaryUuid(connection)) return;
+
+            Bukkit.getLogger().info("[头颅掉落] 正在把 UUID 转换为二进制存储...");
+            if (!columns(connection, "headdrop").contains("uuid_bin")) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.executeUpdate("ALTER TABLE headdrop ADD COLUMN uuid_bin " + dialect.binaryType());
+                }
+            }
+            createQuarantineTable(connection);
+
+            List<String> quarantined = new ArrayList<>();
+            long converted = switch (dialect) {
+                case SQLITE -> copyUuidsByRow(connection, "rowid", quarantined);
+                case H2 -> copyUuidsByRow(connection, "_ROWID_", quarantined);
+                case MYSQL -> copyUuidsMySQL(connection);
+            };
+            quarantineUnconverted(connection, quarantined);
+            swapUuidColumn(connection);
+
+            Bukkit.getLogger().info("[头颅掉落] UUID 转换完成，已转换 " + converted + " 行");
+            if (!quarantined.isEmpty()) {
+                List<String> logged = quarantined.subList(0, Math.min(quarantined.size(), MAX_LOGGED_NAMES));
+                Bukkit.getLogger().warning("[头颅掉落] " + quarantined.size() + " 行的 UUID 为空或无效，未转换，"
+                        + "已移到 headdrop_invalid_uuid 表中保留: " + String.join(", ", logged)
+                        + (quarantined.size() > logged.size() ? " 等" : ""));
+            }
+        }
+    }
+
+    /**
+     * 保存无法转换的行，uuid 保留原始文本
+     */
+    private void createQuarantineTable(Connection connection) throws SQLException {
+        String sql = dialect == SqlDialect.SQLITE
+                ? "CREATE TABLE IF NOT EXISTS headdrop_invalid_uuid ("
+                + "name TEXT, "
+                + "uuid TEXT, "
+                + "data INTEGER, "
+                + "last_updated TIMESTAMP, "
+                + "quarantined_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)"
+                : "CREATE TABLE IF NOT EXISTS headdrop_invalid_uuid ("
+                + "name VARCHAR(16), "
+                + "uuid VARCHAR(64), "
+                + "data INT, "
+                + "last_updated TIMESTAMP NULL, "
+                + "quarantined_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)";
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(sql);
+        }
+    }
+
+    /**
+     * 把仍未转换的行（uuid 为空或 MySQL 正则不匹配）移到隔离表，在同一事务中复制后删除
+     *
+     * @param names 收集被隔离的玩家名称
+     */
+    private static void quarantineUnconverted(Connection connection, List<String> names) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            List<String> found = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery("SELECT name FROM headdrop WHERE uuid_bin IS NULL")) {
+                while (rs.next()) {
+                    found.add(rs.getString(1));
+                }
+            }
+            if (!found.isEmpty()) {
+                statement.executeUpdate("INSERT INTO headdrop_invalid_uuid (name, uuid, data, last_updated) "
+                        + "SELECT name, uuid, data, last_updated FROM headdrop WHERE uuid_bin IS NULL");
+                statement.executeUpdate("DELETE FROM headdrop WHERE uuid_bin IS NULL");
+            }
+            connection.commit();
+            names.addAll(found);
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * 在 Java 中逐行解析并按行号写回（SQLite 和 H2 没有把十六进制文本转换为二进制的通用函数）
+     */
+    private static long copyUuidsByRow(Connection connection, String rowIdColumn, List<String> quarantined) throws SQLException {
+        String selectSQL = "SELECT " + rowIdColumn + ", uuid, name FROM headdrop WHERE uuid_bin IS NULL AND uuid IS NOT NULL LIMIT " + UUID_BATCH_SIZE;
+        String quarantineSQL = "INSERT INTO headdrop_invalid_uuid (name, uuid, data, last_updated) "
+                + "SELECT name, uuid, data, last_updated FROM headdrop WHERE " + rowIdColumn + " = ?";
+        long converted = 0;
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement select = connection.prepareStatement(selectSQL);
+             PreparedStatement update = connection.prepareStatement("UPDATE headdrop SET uuid_bin = ? WHERE " + rowIdColumn + " = ?");
+             PreparedStatement quarantine = connection.prepareStatement(quarantineSQL);
+             PreparedStatement delete = connection.prepareStatement("DELETE FROM headdrop WHERE " + rowIdColumn + " = ?")) {
+            while (true) {
+                int rows = 0;
+                List<String> invalid = new ArrayList<>();
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        rows++;
+                        long rowId = rs.getLong(1);
+                        UUID uuid;
+                        try {
+                            uuid = UUID.fromString(rs.getString(2));
+                        } catch (IllegalArgumentException e) {
+                            // 无法解析的UUID无法参与任何查询，连同积分移到隔离表，否则下一批会再次选中
+                            quarantine.setLong(1, rowId);
+                            quarantine.addBatch();
+                            delete.setLong(1, rowId);
+                            delete.addBatch();
+                            invalid.add(rs.getString(3));
+                            continue;
+                        }
+                        update.setBytes(1, JdbcStorageEngine.uuidToBytes(uuid));
+                        update.setLong(2, rowId);
+                        update.addBatch();
+                    }
+                }
+                if (rows == 0) break;
+
+                update.executeBatch();
+                quarantine.executeBatch();
+                delete.executeBatch();
+                connection.commit();
+                converted += rows - invalid.size();
+                quarantined.addAll(invalid);
+            }
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        return converted;
+    }
+
+    private static long copyUuidsMySQL(Connection connection) throws SQLException {
+        String updateSQL = "UPDATE headdrop SET uuid_bin = UNHEX(REPLACE(uuid, '-', '')) "
+                + "WHERE uuid_bin IS NULL AND uuid REGEXP '^[0-9a-fA-F]{8}-?[0-9a-fA-F]{4}-?[0-9a-fA-F]{4}-?[0-9a-fA-F]{4}-?[0-9a-fA-F]{12}$' "
+                + "LIMIT " + UUID_BATCH_SIZE;
+        long converted = 0;
+        try (Statement statement = connection.createStatement()) {
+            int rows;
+            // 每批单独提交，避免长时间锁表
+            while ((rows = statement.executeUpdate(updateSQL)) > 0) {
+                converted += rows;
+            }
+        }
+        return converted;
+    }
+
+    private void swapUuidColumn(Connection connection) throws SQLException {
+        if (dialect == SqlDialect.MYSQL) {
+            // 迁移2在已有其他 uuid 唯一索引时不会创建 idx_headdrop_uuid，只删除实际存在的索引，
+            // 否则整条 ALTER 失败，而此前已提交的 uuid_bin 无法回滚
+            StringBuilder alter = new StringBuilder("ALTER TABLE headdrop ");
+            for (Map.Entry<String, List<String>> index : uniqueIndexes(connection, "headdrop").entrySet()) {
+                if (!index.getKey().equalsIgnoreCase("PRIMARY") && index.getValue().equals(List.of("uuid"))) {
+                    alter.append("DROP INDEX `").append(index.getKey()).append("`, ");
+                }
+            }
+            boolean primaryKey = indexNames(connection, "headdrop").contains("primary");
+            if (primaryKey) {
+                alter.append("DROP PRIMARY KEY, ");
+            }
+            alter.append("DROP COLUMN uuid, ")
+                    .append("CHANGE COLUMN uuid_bin uuid BINARY(16) NOT NULL, ")
+                    .append("ADD PRIMARY KEY (name, uuid), ")
+                    .append("ADD UNIQUE INDEX idx_headdrop_uuid (uuid)");
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate(alter.toString());
+            }
+            return;
+        }
+
+        // SQLite 不支持修改列类型，H2 不支持在一条语句中同时修改主键和列，重建表后替换
+        boolean sqlite = dialect == SqlDialect.SQLITE;
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE headdrop_new ("
+                    + "name " + (sqlite ? "TEXT" : "VARCHAR(16)") + ", "
+                    + "uuid " + dialect.binaryType() + ", "
+                    + "data " + (sqlite ? "INTEGER" : "INT") + ", "
+                    + "last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+                    + "PRIMARY KEY (name, uuid))");
+            statement.executeUpdate("INSERT INTO headdrop_new (name, uuid, data, last_updated) "
+                    + "SELECT name, uuid_bin, data, last_updated FROM headdrop");
+            statement.executeUpdate("DROP TABLE headdrop");
+            statement.executeUpdate("ALTER TABLE headdrop_new RENAME TO headdrop");
+            statement.executeUpdate("CREATE UNIQUE INDEX idx_headdrop_uuid ON headdrop (uuid)");
+            statement.executeUpdate("CREATE INDEX idx_headdrop_name ON headdrop " + (sqlite ? "(name COLLATE NOCASE)" : "(name)"));
+            statement.executeUpdate("CREATE INDEX idx_headdrop_data ON headdrop (data DESC)");
+            statement.executeUpdate("CREATE INDEX idx_headdrop_last_updated ON headdrop (last_updated)");
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    // endregion
+
+    // region 工具方法
+
+    static void createIndex(Connection connection, String name, String definition) throws SQLException {
+        createIndex(connection, name, definition, false);
+    }
+
+    /**
+     * 创建索引，已存在同名索引时跳过（MySQL 不支持 CREATE INDEX IF NOT EXISTS）
+     */
+    static void createIndex(Connection connection, String name, String definition, boolean unique) throws SQLException {
+        String table = definition.substring(0, definition.indexOf(' ')).trim();
+        if (indexNames(connection, table).contains(name.toLowerCase(Locale.ROOT))) return;
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE " + (unique ? "UNIQUE " : "") + "INDEX " + name + " ON " + definition);
+        }
+    }
+
+    /**
+     * 元数据查询限定的 schema
+     * MySQL 以 catalog 区分数据库，只传 catalog；不限定时同一服务器上其他数据库的同名表也会被读到。
+     * H2 的表属于当前 catalog 下的某个 schema，需要同时限定。
+     */
+    private static String schema(Connection connection) throws SQLException {
+        return "H2".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()) ? connection.getSchema() : null;
+    }
+
+    static Set<String> columns(Connection connection, String table) throws SQLException {
+        Set<String> columns = new HashSet<>();
+        try (ResultSet rs = connection.getMetaData().getColumns(connection.getCatalog(), schema(connection), table, null)) {
+            while (rs.next()) {
+                columns.add(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+            }
+        }
+        return columns;
+    }
+
+    private static Set<String> indexNames(Connection connection, String table) throws SQLException {
+        Set<String> names = new HashSet<>();
+        try (ResultSet rs = connection.getMetaData().getIndexInfo(connection.getCatalog(), schema(connection), table, false, false)) {
+            while (rs.next()) {
+                String index = rs.getString("INDEX_NAME");
+                if (index != null) names.add(index.toLowerCase(Locale.ROOT));
+            }
+        }
+        return names;
+    }
+
+    private static Collection<List<String>> uniqueIndexColumns(Connection connection, String table) throws SQLException {
+        return uniqueIndexes(connection, table).values();
+    }
+
+    /**
+     * 获取唯一索引（包括主键）的名称和按顺序排列的列
+     */
+    private static Map<String, List<String>> uniqueIndexes(Connection connection, String table) throws SQLException {
+        Map<String, List<String>> indexes = new LinkedHashMap<>();
+        try (ResultSet rs = connection.getMetaData().getIndexInfo(connection.getCatalog(), schema(connection), table, true, false)) {
+            while (rs.next()) {
+                String index = rs.getString("INDEX_NAME");
+                String column = rs.getString("COLUMN_NAME");
+                if (index != null && column != null) {
+                    indexes.computeIfAbsent(index, k -> new ArrayList<>()).add(column.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return indexes;
+    }
+
+    // endregion
+}
@@ -0,0 +1,342 @@
+package me.rrs.headdrop.database;
+
+import me.rrs.headdrop.HeadDrop;
+import me.rrs.headdrop.drop.DropSettings;
+import me.rrs.headdrop.util.TaskScheduler;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 积分写回缓存
+ * 玩家进入时异步加载积分，击杀时只在内存中累加，
+ * 按固定间隔把增量批量写回数据库，退出的玩家在写回后移出缓存。
+ * PAPI、命令和界面读取在线玩家积分时直接查内存。
+ */
+public final class ScoreCache implements Listener {
+
+    private final Object writeLock = new Object();
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private TaskScheduler.Task flushTask;
+    // 关闭时在 writeLock 内置空，游戏线程追加时读取
+    private volatile DropJournal journal;
+    // 写入时间桶失败的增量，按日期和玩家合并，下一次写回时重试（只在 writeLock 内访问）
+    private final Map<LocalDate, Map<UUID, ScoreDelta>> unbucketed = new LinkedHashMap<>();
+    private static final String FLUSH_KEY = "score-flush";
+
+    /**
+     * 启动定时写回，并加载当前在线玩家（插件重载时）
+     *
+     * @param intervalSeconds 写回间隔（秒）
+     * @param journal 掉落日志（可为null），启动时恢复其中未写入数据库的积分
+     */
+    public void start(int intervalSeconds, DropJournal journal) {
+        if (journal != null) {
+            try {
+                Map<UUID, DropJournal.Recovered> recovered = journal.open();
+                this.journal = journal;
+                recovered.forEach((uuid, entry) -> restore(uuid, entry.name(), entry.points()));
+            } catch (IOException e) {
+                Bukkit.getLogger().severe("[头颅掉落] 无法打开掉落日志，积分只保存在内存中: " + e.getMessage());
+            }
+        }
+
+        long period = Math.max(1, intervalSeconds) * 20L;
+        flushTask = TaskScheduler.runAsyncTimer(this::scheduleFlush, period, period);
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            entry(player);
+        }
+    }
+
+    /**
+     * 停止定时写回并同步写入所有增量（插件禁用时调用）
+     */
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        // 数据库未就绪时增量保留在掉落日志中，下次启动时恢复
+        if (HeadDrop.getInstance().getDatabase().isReady()) {
+            flush();
+        }
+        // 与写回持有同一把锁，仍在执行的定时写回不会对已关闭的日志封存或压缩
+        synchronized (writeLock) {
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+        }
+    }
+
+    /**
+     * 在内存中累加积分
+     *
+     * @param player 玩家
+     * @param points 积分
+     */
+    public void add(Player player, int points) {
+        if (points == 0 || !DropSettings.current().isDatabaseEnabled()) {
+            return;
+        }
+        Entry entry = entry(player);
+        DropJournal current = journal;
+        if (current != null) {
+            // 先写入日志缓冲区，崩溃后可以从日志恢复
+            current.append(entry.uuid, entry.name, points, () -> entry.pending.add(points));
+        } else {
+            entry.pending.add(points);
+        }
+        if (entry.loaded) {
+            publish(entry);
+        }
+    }
+
+    /**
+     * 获取玩家积分（已写入的部分加上未写回的增量）
+     *
+     * @param uuid 玩家UUID
+     * @return 积分，未缓存的玩家返回0
+     */
+    public int getScore(UUID uuid) {
+        Entry entry = entries.get(uuid);
+        return entry == null ? 0 : entry.base + (int) entry.pending.sum();
+    }
+
+    /**
+     * 玩家积分是否已在缓存中
+     *
+     * @param uuid 玩家UUID
+     * @return 是否已加载
+     */
+    public boolean isLoaded(UUID uuid) {
+        Entry entry = entries.get(uuid);
+        return entry != null && entry.loaded;
+    }
+
+    private Entry entry(Player player) {
+        Entry entry = entries.get(player.getUniqueId());
+        if (entry != null) {
+            entry.name = player.getName();
+            entry.online = true;
+            return entry;
+        }
+
+        Entry created = new Entry(player.getUniqueId(), player.getName());
+        entry = entries.putIfAbsent(player.getUniqueId(), created);
+        if (entry == null) {
+            entry = created;
+            submitLoad(created);
+        }
+        return entry;
+    }
+
+    /**
+     * 提交加载任务，不阻塞调用线程（可能是主线程或区域线程）
+     * 队列已满被拒绝时保持未加载状态，由下一次写回重新提交。
+     */
+    private void submitLoad(Entry entry) {
+        if (entry.loaded || !entry.loading.compareAndSet(false, true)) return;
+        if (!HeadDrop.getInstance().getDatabase().getExecutor().tryExecute(() -> load(entry))) {
+            entry.loading.set(false);
+        }
+    }
+
+    /**
+     * 把从日志恢复的积分放回缓存，按离线玩家处理，写回后移除
+     */
+    private void restore(UUID uuid, String name, int points) {
+        Entry entry = entries.computeIfAbsent(uuid, key -> {
+            Entry created = new Entry(key, name);
+            created.online = false;
+            return created;
+        });
+        entry.pending.add(points);
+        submitLoad(entry);
+    }
+
+    /**
+     * 读取失败时保持未加载状态，由下一次写回重新提交；
+     * 不能把失败当作0，否则离线模式的覆盖写入会抹掉玩家已有的积分
+     */
+    private void load(Entry entry) {
+        try {
+            Database database = HeadDrop.getInstance().getDatabase();
+            // 被保留任务归档的玩家重新活跃时先恢复到主表
+            database.restoreArchived(entry.uuid);
+            OptionalInt score = DropSettings.current().isDatabaseOnline()
+                    ? database.getScore(entry.uuid)
+                    : database.getDataByName(entry.name);
+            if (score.isEmpty()) {
+                Bukkit.getLogger().warning("[头颅掉落] 读取玩家 " + entry.name + " 的积分失败，将在下一次写回时重试");
+                return;
+            }
+            entry.base = score.getAsInt();
+            entry.loaded = true;
+        } finally {
+            entry.loading.set(false);
+        }
+        publish(entry);
+    }
+
+    /**
+     * 把缓存中的积分同步到内存排行榜
+     */
+    private void publish(Entry entry) {
+        HeadDrop.getInstance().getLeaderboard().update(entry.uuid, entry.name, getScore(entry.uuid));
+    }
+
+    private void scheduleFlush() {
+        // 排队中的写回会被合并，数据库卡顿时不会堆积
+        HeadDrop.getInstance().getDatabase().getExecutor().execute(FLUSH_KEY, this::flush);
+    }
+
+    /**
+     * 写回所有已加载玩家的增量，并移除已离线且没有增量的玩家
+     * 使用日志时先封存当前日志段并在同一把锁内读取增量，写回后把未写入的增量压缩为快照。
+     */
+    private void flush() {
+        boolean useUuid = DropSettings.current().isDatabaseOnline();
+        Database database = HeadDrop.getInstance().getDatabase();
+
+        synchronized (writeLock) {
+            Map<Entry, Long> captured = new HashMap<>();
+            Runnable capture = () -> {
+                for (Entry entry : entries.values()) {
+                    long delta = entry.pending.sum();
+                    if (delta != 0) captured.put(entry, delta);
+                }
+            };
+            long sealed = -1;
+            if (journal != null) {
+                sealed = journal.rotate(capture);
+            } else {
+                capture.run();
+            }
+
+            List<ScoreDelta> written = new ArrayList<>();
+            List<ScoreDelta> carried = new ArrayList<>();
+            List<Entry> batchEntries = new ArrayList<>();
+            List<ScoreDelta> batch = new ArrayList<>();
+            for (Map.Entry<Entry, Long> capturedEntry : captured.entrySet()) {
+                Entry entry = capturedEntry.getKey();
+                // 只写回读取时的增量，之后的累加属于新的日志段，留到下一次写回
+                ScoreDelta delta = new ScoreDelta(entry.uuid, entry.name, DropJournal.saturate(capturedEntry.getValue()));
+                if (!entry.loaded) {
+                    carried.add(delta);
+                } else if (useUuid) {
+                    batchEntries.add(entry);
+                    batch.add(delta);
+                } else {
+                    // 离线模式写入的是总数：加载后才被归档的积分恢复到主表后重新加载，再按新的总数写入
+                    if (database.restoreArchived(entry.uuid)) {
+                        entry.loaded = false;
+                        carried.add(delta);
+                    } else if (database.updateDataByName(entry.uuid, entry.name, entry.base + delta.points())) {
+                        applyWritten(entry, delta, written);
+                    } else {
+                        carried.add(delta);
+                    }
+                }
+            }
+
+            // 在线模式所有增量作为一个批次写入，由存储引擎决定如何合并
+            if (!batch.isEmpty()) {
+                boolean success = database.incrementScores(batch);
+                for (int i = 0; i < batch.size(); i++) {
+                    if (success) {
+                        applyWritten(batchEntries.get(i), batch.get(i), written);
+                    } else {
+                        carried.add(batch.get(i));
+                    }
+                }
+            }
+            if (sealed >= 0) {
+                journal.compact(sealed, carried);
+            }
+
+            for (Entry entry : entries.values()) {
+                if (!entry.loaded) {
+                    // 加载任务曾被拒绝时重新提交，否则增量会一直留在缓存中
+                    submitLoad(entry);
+                    continue;
+                }
+
+                if (!entry.online && entry.pending.sum() == 0 && entries.remove(entry.uuid, entry)) {
+                    // 移除期间玩家重新进入或又有新增量时放回缓存
+                    if (entry.online || entry.pending.sum() != 0) {
+                        entries.putIfAbsent(entry.uuid, entry);
+                    }
+                }
+            }
+
+            // 增量按写回时的日期计入时间窗口；日志已压缩，失败的增量保留在内存中重试
+            Map<UUID, ScoreDelta> today = unbucketed.computeIfAbsent(LocalDate.now(), date -> new HashMap<>());
+            for (ScoreDelta delta : written) {
+                today.merge(delta.uuid(), delta, (old, added) ->
+                        new ScoreDelta(added.uuid(), added.name(), old.points() + added.points()));
+            }
+            Iterator<Map.Entry<LocalDate, Map<UUID, ScoreDelta>>> iterator = unbucketed.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<LocalDate, Map<UUID, ScoreDelta>> bucket = iterator.next();
+                if (database.addToBuckets(new ArrayList<>(bucket.getValue().values()), bucket.getKey())) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static void applyWritten(Entry entry, ScoreDelta delta, List<ScoreDelta> written) {
+        entry.base += delta.points();
+        entry.pending.add(-delta.points());
+        written.add(delta);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        entry(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        Entry entry = entries.get(event.getPlayer().getUniqueId());
+        if (entry == null) return;
+
+        // 不立即移除，由定时写回写入增量后再移除；重新进入的玩家可以直接复用已加载的积分。
+        // 这里是主线程或区域线程，不提交可能阻塞的写回任务
+        entry.online = false;
+    }
+
+    private static final class Entry {
+        private final UUID uuid;
+        private volatile String name;
+        private volatile int base;
+        private volatile boolean loaded;
+        private volatile boolean online = true;
+        private final AtomicBoolean loading = new AtomicBoolean();
+        private final LongAdder pending = new LongAdder();
+
+        private Entry(UUID uuid, String name) {
+            this.uuid = uuid;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package me.rrs.headdrop.database;
+
+import java.util.UUID;
+
+/**
+ * 一次写回中玩家的积分增量
+ *
+ * @param uuid 玩家UUID
+ * @param name 玩家名称
+ * @param points 增量
+ */
+public record ScoreDelta(UUID uuid, String name, int points) {
+}
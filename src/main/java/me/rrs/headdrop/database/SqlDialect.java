@@ -0,0 +1,80 @@
+package me.rrs.headdrop.database;
+
+/**
+ * JDBC 引擎之间的 SQL 差异
+ * H2 以 MySQL 兼容模式运行，除时间函数外与 MySQL 使用相同的语句。
+ */
+enum SqlDialect {
+    SQLITE("SQLite"),
+    MYSQL("MySQL"),
+    H2("H2");
+
+    private final String displayName;
+
+    SqlDialect(String displayName) {
+        this.displayName = displayName;
+    }
+
+    String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * 当前时间
+     */
+    String now() {
+        return switch (this) {
+            case SQLITE -> "datetime('now')";
+            case MYSQL -> "NOW()";
+            case H2 -> "CURRENT_TIMESTAMP";
+        };
+    }
+
+    /**
+     * 按名称匹配的条件，SQLite 需要显式使用 NOCASE 才能命中名称索引；
+     * H2 以 IGNORECASE 模式打开，文本列本身不区分大小写
+     */
+    String nameEquals() {
+        return this == SQLITE ? "name = ? COLLATE NOCASE" : "name = ?";
+    }
+
+    /**
+     * 早于指定天数的条件，天数作为唯一的参数绑定
+     *
+     * @param column 时间列
+     */
+    String olderThanDays(String column) {
+        return switch (this) {
+            case SQLITE -> column + " < datetime('now', '-' || ? || ' days')";
+            case MYSQL -> column + " < NOW() - INTERVAL ? DAY";
+            case H2 -> column + " < DATEADD(DAY, -CAST(? AS INT), CURRENT_TIMESTAMP)";
+        };
+    }
+
+    /**
+     * 插入冲突时改为更新的子句，之后紧跟 SET 的赋值列表
+     *
+     * @param conflictColumns 唯一键的列
+     */
+    String upsert(String conflictColumns) {
+        return this == SQLITE
+                ? " ON CONFLICT(" + conflictColumns + ") DO UPDATE SET "
+                : " ON DUPLICATE KEY UPDATE ";
+    }
+
+    /**
+     * 在冲突更新中引用待插入的值
+     *
+     * @param column 列名
+     */
+    String excluded(String column) {
+        return this == SQLITE ? "excluded." + column : "VALUES(" + column + ")";
+    }
+
+    /**
+     * 16字节UUID的列类型
+     */
+    String binaryType() {
+        return this == SQLITE ? "BLOB" : "BINARY(16)";
+    }
+}
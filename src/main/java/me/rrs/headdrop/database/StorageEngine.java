@@ -0,0 +1,226 @@
+package me.rrs.headdrop.database;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.UUID;
+
+/**
+ * 积分存储引擎
+ * 由 {@link Database} 在后台线程中打开，之后只在数据库执行器的线程中调用，实现需要自行保证线程安全。
+ * 积分、排名和归档是每个引擎都必须支持的；按生物类型统计和时间窗口排行榜是可选的，
+ * 不支持的引擎丢弃写入并返回空结果。
+ */
+public interface StorageEngine {
+
+    /**
+     * 获取引擎名称（用于日志和调试信息）
+     *
+     * @return 名称
+     */
+    String getName();
+
+    /**
+     * 打开存储并创建或升级数据结构
+     *
+     * @throws Exception 无法打开时抛出，数据库进入失败状态
+     */
+    void open() throws Exception;
+
+    /**
+     * 关闭存储，之后不会再有调用
+     */
+    void close();
+
+    // region 积分
+
+    /**
+     * 获取玩家积分
+     *
+     * @param uuid 玩家UUID
+     * @return 积分，没有记录时返回0，读取失败时返回空（不能当作0写回）
+     */
+    OptionalInt getScore(UUID uuid);
+
+    /**
+     * 按名称获取玩家积分（离线模式，名称不区分大小写）
+     *
+     * @param name 玩家名称
+     * @return 积分，没有记录时返回0，读取失败时返回空
+     */
+    OptionalInt getScoreByName(String name);
+
+    /**
+     * 原子地增加玩家积分，记录不存在时插入
+     *
+     * @param uuid 玩家UUID
+     * @param name 玩家名称
+     * @param delta 增量
+     * @return 是否写入成功
+     */
+    default boolean incrementScore(UUID uuid, String name, int delta) {
+        return incrementScores(List.of(new ScoreDelta(uuid, name, delta)));
+    }
+
+    /**
+     * 批量增加积分，全部成功或全部失败
+     * 积分缓存每次写回只调用一次，每个引擎按自己的方式合并写入。
+     *
+     * @param deltas 每个玩家的增量（同一玩家最多一条）
+     * @return 是否写入成功
+     */
+    boolean incrementScores(List<ScoreDelta> deltas);
+
+    /**
+     * 按名称设置玩家积分（离线模式），没有该名称的记录时以给定的UUID插入
+     *
+     * @param uuid 玩家UUID
+     * @param name 玩家名称
+     * @param score 积分
+     * @return 是否写入成功
+     */
+    boolean setScoreByName(UUID uuid, String name, int score);
+
+    // endregion
+
+    // region 排名
+
+    /**
+     * 按积分从高到低获取一页排行榜
+     *
+     * @param limit 条目数
+     * @param offset 跳过的条目数
+     * @return 排行榜条目
+     */
+    List<LeaderboardEntry> getTop(int limit, int offset);
+
+    /**
+     * 获取玩家排名（积分严格高于该玩家的人数加一）
+     *
+     * @param uuid 玩家UUID
+     * @return 排名，没有记录时返回0
+     */
+    int getRank(UUID uuid);
+
+    /**
+     * 获取排行榜总人数
+     *
+     * @return 玩家数
+     */
+    int getPlayerCount();
+
+    /**
+     * 逐个读取全部积分（用于构建内存排行榜）
+     *
+     * @param consumer 每个玩家的回调
+     */
+    void forEachScore(LeaderboardIndex.ScoreConsumer consumer);
+
+    // endregion
+
+    // region 保留
+
+    /**
+     * 把超过保留天数未活跃的玩家移入归档，期间重新活跃的玩家不会被归档
+     * 玩家已有尚未恢复的归档时，积分累加到原归档上。
+     *
+     * @param days 保留天数
+     * @param limit 本批最多归档的玩家数
+     * @return 已归档的玩家UUID
+     */
+    List<UUID> archiveInactive(int days, int limit);
+
+    /**
+     * 把归档的玩家恢复为活跃
+     * 归档后又写入过积分时已有新的活跃记录，归档的积分累加到该记录上，不会丢失。
+     *
+     * @param uuid 玩家UUID
+     * @return 是否恢复了归档的积分（没有归档时返回 false）
+     */
+    boolean restoreArchived(UUID uuid);
+
+    // endregion
+
+    // region 可选统计
+
+    /**
+     * 批量累加按生物类型统计的数量
+     *
+     * @param counts 每个 (玩家, 生物类型) 组合的增量
+     * @return 是否写入成功（不支持的引擎直接丢弃并返回成功）
+     */
+    default boolean incrementKills(Map<KillCounter.Key, Long> counts) {
+        return true;
+    }
+
+    /**
+     * 获取某种生物的头颅排行榜
+     *
+     * @param entityType 生物类型
+     * @param limit 条目数
+     * @param offset 跳过的条目数
+     * @return 按数量从高到低排列的统计
+     */
+    default List<KillCount> getTopByEntity(String entityType, int limit, int offset) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * 获取玩家按生物类型的头颅数量
+     *
+     * @param uuid 玩家UUID
+     * @return 生物类型到数量的映射
+     */
+    default Map<String, Long> getKillsByPlayer(UUID uuid) {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * 获取某种生物的头颅总数
+     *
+     * @param entityType 生物类型
+     * @return 总数
+     */
+    default long getTotalKills(String entityType) {
+        return 0L;
+    }
+
+    /**
+     * 把积分增量累加到日、周、月三个时间桶
+     *
+     * @param deltas 积分增量
+     * @param date 增量所属的日期
+     * @return 是否写入成功（不支持的引擎直接丢弃并返回成功）
+     */
+    default boolean addToBuckets(List<ScoreDelta> deltas, LocalDate date) {
+        return true;
+    }
+
+    /**
+     * 获取时间窗口内的排行榜
+     *
+     * @param window 时间窗口
+     * @param date 窗口内的任意日期
+     * @param limit 条目数
+     * @param offset 跳过的条目数
+     * @return 排行榜条目
+     */
+    default List<LeaderboardEntry> getWindowTop(TimeWindow window, LocalDate date, int limit, int offset) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * 删除某个粒度中早于指定起始日的时间桶
+     *
+     * @param window 时间窗口
+     * @param beforeBucketStart 保留的最早起始日
+     * @return 删除的记录数
+     */
+    default int pruneBuckets(TimeWindow window, long beforeBucketStart) {
+        return 0;
+    }
+
+    // endregion
+}
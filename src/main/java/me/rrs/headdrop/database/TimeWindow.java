@@ -0,0 +1,85 @@
+package me.rrs.headdrop.database;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+/**
+ * 排行榜时间窗口
+ * 每个窗口以起始日期（epoch day）作为分桶键，积分写回时同时累加到日、周、月三个桶。
+ */
+public enum TimeWindow {
+    DAY(0, "今日", "Day-Retention"),
+    WEEK(1, "本周", "Week-Retention"),
+    MONTH(2, "本月", "Month-Retention");
+
+    private final int id;
+    private final String displayName;
+    private final String retentionKey;
+
+    TimeWindow(int id, String displayName, String retentionKey) {
+        this.id = id;
+        this.displayName = displayName;
+        this.retentionKey = retentionKey;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * 保留数量在 Database.Windows 下的配置键
+     */
+    public String getRetentionKey() {
+        return retentionKey;
+    }
+
+    /**
+     * 获取日期所在桶的起始日（周从星期一开始）
+     *
+     * @param date 日期
+     * @return 起始日的 epoch day
+     */
+    public long bucketStart(LocalDate date) {
+        return switch (this) {
+            case DAY -> date.toEpochDay();
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toEpochDay();
+            case MONTH -> date.withDayOfMonth(1).toEpochDay();
+        };
+    }
+
+    /**
+     * 获取往前若干个窗口的日期
+     *
+     * @param date 日期
+     * @param count 窗口数
+     * @return 日期
+     */
+    public LocalDate minus(LocalDate date, int count) {
+        return switch (this) {
+            case DAY -> date.minusDays(count);
+            case WEEK -> date.minusWeeks(count);
+            case MONTH -> date.minusMonths(count);
+        };
+    }
+
+    /**
+     * 解析命令参数
+     *
+     * @param value 参数
+     * @return 时间窗口，无法识别时返回null
+     */
+    public static TimeWindow parse(String value) {
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "day", "daily", "日", "今日" -> DAY;
+            case "week", "weekly", "周", "本周" -> WEEK;
+            case "month", "monthly", "月", "本月" -> MONTH;
+            default -> null;
+        };
+    }
+}
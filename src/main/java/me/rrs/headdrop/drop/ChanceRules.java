@@ -0,0 +1,285 @@
+package me.rrs.headdrop.drop;
+
+import dev.dejvokep.boostedyaml.block.implementation.Section;
+import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Registry;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 掉落几率规则
+ * Chance-Rules 中的每条规则在加载时编译成条件数组，条件按开销从低到高排列；
+ * 世界、生物群系、实体类型预先解析为集合，星期、月相、天气编译为位掩码。
+ * 死亡事件中只做集合查询和整数比较，不读取配置。
+ */
+public final class ChanceRules {
+
+    private static final ChanceRules EMPTY = new ChanceRules(new Rule[0]);
+
+    private static volatile Clock clock = new Clock(0, 0L);
+
+    private final Rule[] rules;
+
+    private ChanceRules(Rule[] rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * 编译规则配置
+     *
+     * @param section Chance-Rules 配置节（可为null）
+     * @return 编译后的规则
+     */
+    public static ChanceRules compile(Section section) {
+        return compile(section, EMPTY);
+    }
+
+    /**
+     * 编译规则配置，同名规则沿用之前的命中次数
+     * 世界加载和重载配置都会重新编译，命中统计不会因此清零。
+     *
+     * @param section Chance-Rules 配置节（可为null）
+     * @param previous 之前生效的规则
+     * @return 编译后的规则
+     */
+    public static ChanceRules compile(Section section, ChanceRules previous) {
+        if (section == null) return EMPTY;
+
+        Map<String, LongAdder> counters = new HashMap<>();
+        for (Rule rule : previous.rules) {
+            counters.put(rule.name, rule.hits);
+        }
+
+        List<Rule> rules = new ArrayList<>();
+        for (String name : section.getRoutesAsStrings(false)) {
+            Section rule = section.getSection(name);
+            if (rule == null || !rule.getBoolean("Enable", true)) continue;
+
+            try {
+                rules.add(compileRule(name, rule, counters.getOrDefault(name, new LongAdder())));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                Bukkit.getLogger().warning("[头颅掉落] 几率规则 " + name + " 配置无效: " + e.getMessage());
+            }
+        }
+        return rules.isEmpty() ? EMPTY : new ChanceRules(rules.toArray(new Rule[0]));
+    }
+
+    /**
+     * 依次应用所有命中的规则
+     *
+     * @param chance 基础几率
+     * @param entity 死亡的实体
+     * @param killer 击杀者（可为null）
+     * @return 应用规则后的几率
+     */
+    public float apply(float chance, LivingEntity entity, Player killer) {
+        if (rules.length == 0) return chance;
+
+        for (Rule rule : rules) {
+            if (rule.matches(entity, killer)) {
+                rule.hits.increment();
+                chance = chance * rule.multiplier + rule.bonus;
+            }
+        }
+        return chance;
+    }
+
+    /**
+     * 获取各规则的命中次数（用于调整配置）
+     *
+     * @return 规则名称到命中次数的映射
+     */
+    public Map<String, Long> getHitCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Rule rule : rules) {
+            counts.put(rule.name, rule.hits.sum());
+        }
+        return counts;
+    }
+
+    // region 规则编译
+
+    private static Rule compileRule(String name, Section section, LongAdder hits) {
+        List<Condition> conditions = new ArrayList<>();
+
+        // 只依赖时钟和实体字段的条件放在前面，查询方块和权限的条件放在后面
+        String start = section.getString("Start");
+        String end = section.getString("End");
+        if (start != null || end != null) {
+            ZoneId zone = ZoneId.systemDefault();
+            long from = start == null ? Long.MIN_VALUE
+                    : LocalDateTime.parse(start).atZone(zone).toInstant().toEpochMilli();
+            long to = end == null ? Long.MAX_VALUE
+                    : LocalDateTime.parse(end).atZone(zone).toInstant().toEpochMilli();
+            conditions.add((entity, killer) -> {
+                long now = System.currentTimeMillis();
+                return now >= from && now < to;
+            });
+        }
+
+        List<String> days = section.getStringList("Days");
+        if (!days.isEmpty()) {
+            int mask = 0;
+            for (String day : days) {
+                mask |= 1 << DayOfWeek.valueOf(day.trim().toUpperCase(Locale.ROOT)).ordinal();
+            }
+            int dayMask = mask;
+            conditions.add((entity, killer) -> (dayMask & (1 << currentDayOfWeek())) != 0);
+        }
+
+        List<String> entities = section.getStringList("Entities");
+        if (!entities.isEmpty()) {
+            Set<EntityType> types = EnumSet.noneOf(EntityType.class);
+            for (String type : entities) {
+                types.add(EntityType.valueOf(type.trim().toUpperCase(Locale.ROOT)));
+            }
+            conditions.add((entity, killer) -> types.contains(entity.getType()));
+        }
+
+        List<String> worlds = section.getStringList("Worlds");
+        if (!worlds.isEmpty()) {
+            Set<UUID> ids = new HashSet<>();
+            for (String worldName : worlds) {
+                World world = Bukkit.getWorld(worldName);
+                if (world != null) ids.add(world.getUID());
+            }
+            conditions.add((entity, killer) -> ids.contains(entity.getWorld().getUID()));
+        }
+
+        String time = section.getString("Time");
+        if (time != null) {
+            String[] range = time.split("-");
+            if (range.length != 2) throw new IllegalArgumentException("Time 格式应为 开始-结束，例如 13000-23000");
+            long from = Long.parseLong(range[0].trim());
+            long to = Long.parseLong(range[1].trim());
+            // 跨越午夜的区间（开始大于结束）按两段处理
+            conditions.add(from <= to
+                    ? (entity, killer) -> {
+                        long now = entity.getWorld().getTime();
+                        return now >= from && now <= to;
+                    }
+                    : (entity, killer) -> {
+                        long now = entity.getWorld().getTime();
+                        return now >= from || now <= to;
+                    });
+        }
+
+        List<Integer> moonPhases = section.getIntList("Moon-Phases");
+        if (!moonPhases.isEmpty()) {
+            int mask = 0;
+            for (int phase : moonPhases) {
+                if (phase < 0 || phase > 7) throw new IllegalArgumentException("月相应为 0-7: " + phase);
+                mask |= 1 << phase;
+            }
+            int phaseMask = mask;
+            conditions.add((entity, killer) -> (phaseMask & (1 << (int) ((entity.getWorld().getFullTime() / 24000L) % 8))) != 0);
+        }
+
+        List<String> weather = section.getStringList("Weather");
+        if (!weather.isEmpty()) {
+            int mask = 0;
+            for (String state : weather) {
+                mask |= 1 << Weather.valueOf(state.trim().toUpperCase(Locale.ROOT)).ordinal();
+            }
+            int weatherMask = mask;
+            conditions.add((entity, killer) -> (weatherMask & (1 << Weather.of(entity.getWorld()).ordinal())) != 0);
+        }
+
+        List<String> biomes = section.getStringList("Biomes");
+        if (!biomes.isEmpty()) {
+            Set<Biome> set = new HashSet<>();
+            for (String biomeName : biomes) {
+                NamespacedKey key = NamespacedKey.fromString(biomeName.trim().toLowerCase(Locale.ROOT));
+                Biome biome = key == null ? null : Registry.BIOME.get(key);
+                if (biome == null) throw new IllegalArgumentException("未知的生物群系: " + biomeName);
+                set.add(biome);
+            }
+            conditions.add((entity, killer) -> {
+                var location = entity.getLocation();
+                return set.contains(entity.getWorld().getBiome(location.getBlockX(), location.getBlockY(), location.getBlockZ()));
+            });
+        }
+
+        String permission = section.getString("Permission");
+        if (permission != null && !permission.isEmpty()) {
+            conditions.add((entity, killer) -> killer != null && killer.hasPermission(permission));
+        }
+
+        return new Rule(name, conditions.toArray(new Condition[0]),
+                (float) section.getDouble("Multiplier", 1.0),
+                (float) section.getDouble("Bonus", 0.0),
+                hits);
+    }
+
+    /**
+     * 获取当前星期（0 = 星期一），每天只计算一次
+     */
+    private static int currentDayOfWeek() {
+        Clock cached = clock;
+        long now = System.currentTimeMillis();
+        if (now >= cached.validUntil) {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate today = LocalDate.now(zone);
+            cached = new Clock(today.getDayOfWeek().ordinal(),
+                    today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+            clock = cached;
+        }
+        return cached.dayOfWeek;
+    }
+
+    // endregion
+
+    @FunctionalInterface
+    private interface Condition {
+        boolean test(LivingEntity entity, Player killer);
+    }
+
+    private enum Weather {
+        CLEAR,
+        RAIN,
+        THUNDER;
+
+        private static Weather of(World world) {
+            if (world.isThundering()) return THUNDER;
+            return world.hasStorm() ? RAIN : CLEAR;
+        }
+    }
+
+    private record Clock(int dayOfWeek, long validUntil) {
+    }
+
+    private static final class Rule {
+        private final String name;
+        private final Condition[] conditions;
+        private final float multiplier;
+        private final float bonus;
+        private final LongAdder hits;
+
+        private Rule(String name, Condition[] conditions, float multiplier, float bonus, LongAdder hits) {
+            this.name = name;
+            this.conditions = conditions;
+            this.multiplier = multiplier;
+            this.bonus = bonus;
+            this.hits = hits;
+        }
+
+        private boolean matches(LivingEntity entity, Player killer) {
+            for (Condition condition : conditions) {
+                if (!condition.test(entity, killer)) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package me.rrs.headdrop.drop;
+
+/**
+ * 单个实体类型的掉落策略
+ * 由配置文件中对应实体的配置节预先编译而来，死亡事件中直接读取，不再访问YAML
+ *
+ * @param drop 是否启用该实体的头颅掉落
+ * @param chance 基础掉落几率 (0-100)
+ * @param point 每次掉落获得的积分
+ */
+public record DropPolicy(boolean drop, float chance, int point) {
+}
@@ -0,0 +1,234 @@
+package me.rrs.headdrop.drop;
+
+import dev.dejvokep.boostedyaml.YamlDocument;
+import me.rrs.headdrop.util.LoreTemplate;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.EntityType;
+import org.bukkit.event.entity.CreatureSpawnEvent;
+
+import java.util.*;
+
+/**
+ * 掉落配置快照
+ * 在插件启用和 /headdrop reload 时从配置文件编译一次，之后整体原子替换。
+ * 死亡事件只读取这里的字段，不做字符串拼接或YAML查询。
+ */
+public final class DropSettings {
+
+    private static volatile DropSettings current = new DropSettings();
+
+    private final Map<EntityType, DropPolicy> policies;
+    private final boolean requireKillerPlayer;
+    private final boolean enableLooting;
+    private final boolean enablePermChance;
+    private final boolean babyHeadDrop;
+    private final boolean nerfSpawner;
+    private final Set<CreatureSpawnEvent.SpawnReason> nerfedSpawnReasons;
+    private final boolean weaponRequired;
+    private final Set<Material> weapons;
+    private final Set<UUID> disabledWorlds;
+    private final boolean botEnabled;
+    private final boolean databaseEnabled;
+    private final boolean databaseOnline;
+    private final LoreTemplate lore;
+    private final long protectionCacheTtl;
+    private final ChanceRules chanceRules;
+
+    /**
+     * 空快照，在配置加载前使用，不允许任何掉落
+     */
+    private DropSettings() {
+        this.policies = Collections.emptyMap();
+        this.requireKillerPlayer = true;
+        this.enableLooting = false;
+        this.enablePermChance = false;
+        this.babyHeadDrop = false;
+        this.nerfSpawner = false;
+        this.nerfedSpawnReasons = Collections.emptySet();
+        this.weaponRequired = false;
+        this.weapons = Collections.emptySet();
+        this.disabledWorlds = Collections.emptySet();
+        this.botEnabled = false;
+        this.databaseEnabled = false;
+        this.databaseOnline = true;
+        this.lore = LoreTemplate.compile(Collections.emptyList(), false);
+        this.protectionCacheTtl = 0L;
+        this.chanceRules = ChanceRules.compile(null);
+    }
+
+    private DropSettings(YamlDocument config) {
+        this.policies = compilePolicies(config);
+        this.requireKillerPlayer = config.getBoolean("Config.Require-Killer-Player", true);
+        this.enableLooting = config.getBoolean("Config.Enable-Looting", false);
+        this.enablePermChance = config.getBoolean("Config.Enable-Perm-Chance", false);
+        this.babyHeadDrop = config.getBoolean("Config.Baby-HeadDrop", false);
+        this.nerfSpawner = config.getBoolean("Config.Nerf-Spawner", false);
+        this.nerfedSpawnReasons = compileSpawnReasons(config.getStringList("Config.Nerf-Spawn-Reasons"));
+        this.weaponRequired = config.getBoolean("Require-Weapon.Enable", false);
+        this.weapons = compileWeapons(config.getStringList("Require-Weapon.Weapons"));
+        this.disabledWorlds = compileWorlds(config.getStringList("Config.Disable-Worlds"));
+        this.botEnabled = config.getBoolean("Bot.Enable", false);
+        this.databaseEnabled = config.getBoolean("Database.Enable", false);
+        this.databaseOnline = config.getBoolean("Database.Online", true);
+        this.lore = LoreTemplate.compile(config.getStringList("Lores"),
+                Bukkit.getPluginManager().isPluginEnabled("PlaceholderAPI"));
+        this.protectionCacheTtl = Math.max(0, config.getInt("Protection.Cache-TTL", 30)) * 1000L;
+        this.chanceRules = ChanceRules.compile(config.getSection("Chance-Rules"), current.chanceRules);
+    }
+
+    /**
+     * 获取当前生效的快照
+     *
+     * @return 当前快照
+     */
+    public static DropSettings current() {
+        return current;
+    }
+
+    /**
+     * 从配置重新编译快照并原子替换
+     *
+     * @param config 配置文档
+     * @return 新快照
+     */
+    public static DropSettings reload(YamlDocument config) {
+        DropSettings settings = new DropSettings(config);
+        current = settings;
+        return settings;
+    }
+
+    private static Map<EntityType, DropPolicy> compilePolicies(YamlDocument config) {
+        Map<EntityType, DropPolicy> map = new EnumMap<>(EntityType.class);
+        for (EntityType type : EntityType.values()) {
+            String key = configKey(type);
+            if (!config.isSection(key)) continue;
+
+            map.put(type, new DropPolicy(
+                    config.getBoolean(key + ".Drop", false),
+                    config.getFloat(key + ".Chance", 0F),
+                    config.getInt(key + ".Point", 0)));
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    private static Set<Material> compileWeapons(List<String> names) {
+        Set<Material> set = EnumSet.noneOf(Material.class);
+        if (names == null) return set;
+
+        for (String name : names) {
+            if (name == null) continue;
+            Material material = Material.matchMaterial(name);
+            if (material != null) {
+                set.add(material);
+            } else {
+                Bukkit.getLogger().warning("[头颅掉落] 未知的武器类型: " + name);
+            }
+        }
+        return Collections.unmodifiableSet(set);
+    }
+
+    private static Set<CreatureSpawnEvent.SpawnReason> compileSpawnReasons(List<String> names) {
+        Set<CreatureSpawnEvent.SpawnReason> set = EnumSet.noneOf(CreatureSpawnEvent.SpawnReason.class);
+        if (names == null || names.isEmpty()) {
+            set.add(CreatureSpawnEvent.SpawnReason.SPAWNER);
+            return Collections.unmodifiableSet(set);
+        }
+
+        for (String name : names) {
+            if (name == null) continue;
+            try {
+                set.add(CreatureSpawnEvent.SpawnReason.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                Bukkit.getLogger().warning("[头颅掉落] 未知的生成原因: " + name);
+            }
+        }
+        return Collections.unmodifiableSet(set);
+    }
+
+    private static Set<UUID> compileWorlds(List<String> names) {
+        if (names == null || names.isEmpty()) return Collections.emptySet();
+
+        Set<UUID> set = new HashSet<>();
+        for (String name : names) {
+            World world = name == null ? null : Bukkit.getWorld(name);
+            if (world != null) set.add(world.getUID());
+        }
+        return Collections.unmodifiableSet(set);
+    }
+
+    /**
+     * 获取实体类型对应的配置节名称
+     *
+     * @param type 实体类型
+     * @return 配置节名称
+     */
+    public static String configKey(EntityType type) {
+        // 旧版本的雪傀儡枚举名为 SNOWMAN，配置中统一使用 SNOW_GOLEM
+        String name = type.name();
+        return name.equals("SNOWMAN") ? "SNOW_GOLEM" : name;
+    }
+
+    /**
+     * 获取实体类型的掉落策略
+     *
+     * @param type 实体类型
+     * @return 掉落策略，未配置时返回null
+     */
+    public DropPolicy policy(EntityType type) {
+        return policies.get(type);
+    }
+
+    public boolean isRequireKillerPlayer() { return requireKillerPlayer; }
+    public boolean isEnableLooting() { return enableLooting; }
+    public boolean isEnablePermChance() { return enablePermChance; }
+    public boolean isBabyHeadDrop() { return babyHeadDrop; }
+    public boolean isNerfSpawner() { return nerfSpawner; }
+    public boolean isWeaponRequired() { return weaponRequired; }
+    public boolean isBotEnabled() { return botEnabled; }
+    public boolean isDatabaseEnabled() { return databaseEnabled; }
+    public boolean isDatabaseOnline() { return databaseOnline; }
+    public LoreTemplate getLore() { return lore; }
+    public long getProtectionCacheTtl() { return protectionCacheTtl; }
+    public ChanceRules getChanceRules() { return chanceRules; }
+
+    /**
+     * 检查武器是否满足要求
+     *
+     * @param material 武器类型
+     * @return 是否允许
+     */
+    public boolean isAllowedWeapon(Material material) {
+        return weapons.contains(material);
+    }
+
+    /**
+     * 是否配置了任何允许的武器
+     *
+     * @return 是否有武器
+     */
+    public boolean hasWeapons() {
+        return !weapons.isEmpty();
+    }
+
+    /**
+     * 检查该生成原因的生物是否被削弱（不掉落头颅）
+     *
+     * @param reason 生成原因
+     * @return 是否被削弱
+     */
+    public boolean isNerfedSpawnReason(CreatureSpawnEvent.SpawnReason reason) {
+        return nerfSpawner && nerfedSpawnReasons.contains(reason);
+    }
+
+    /**
+     * 检查世界是否禁用了头颅掉落
+     *
+     * @param world 世界
+     * @return 是否禁用
+     */
+    public boolean isWorldDisabled(World world) {
+        return disabledWorlds.contains(world.getUID());
+    }
+}
@@ -0,0 +1,19 @@
+package me.rrs.headdrop.drop;
+
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * 根据死亡实体解析出应掉落的头颅
+ */
+@FunctionalInterface
+public interface HeadResolver {
+
+    /**
+     * 解析头颅物品
+     *
+     * @param entity 死亡的实体
+     * @return 头颅物品，不应掉落时返回null
+     */
+    ItemStack resolve(LivingEntity entity);
+}
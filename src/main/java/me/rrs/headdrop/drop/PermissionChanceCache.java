@@ -0,0 +1,96 @@
+package me.rrs.headdrop.drop;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 权限几率加成缓存
+ * headdrop.chance{数字} 的最大值在玩家进入时计算一次，
+ * 在权限重算、切换世界和退出时失效，避免每次击杀都做100次权限查询。
+ * 缓存可被多个区域线程并发读写；计算在映射的原子操作内完成，
+ * LuckPerms 线程的失效会等待正在进行的计算结束后再移除，旧值不会覆盖失效。
+ */
+public final class PermissionChanceCache implements Listener {
+
+    private static final int MAX_BONUS = 100;
+    private static final String[] PERMISSIONS = new String[MAX_BONUS + 1];
+
+    static {
+        for (int i = 1; i <= MAX_BONUS; i++) {
+            PERMISSIONS[i] = "headdrop.chance" + i;
+        }
+    }
+
+    private static final PermissionChanceCache INSTANCE = new PermissionChanceCache();
+
+    private final Map<UUID, Integer> bonuses = new ConcurrentHashMap<>();
+
+    private PermissionChanceCache() {
+    }
+
+    public static PermissionChanceCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 获取玩家的权限几率加成，未缓存时立即计算
+     *
+     * @param player 玩家
+     * @return 几率加成 (0-100)
+     */
+    public int getBonus(Player player) {
+        return bonuses.computeIfAbsent(player.getUniqueId(), uuid -> compute(player));
+    }
+
+    /**
+     * 使单个玩家的缓存失效
+     *
+     * @param uuid 玩家UUID
+     */
+    public void invalidate(UUID uuid) {
+        bonuses.remove(uuid);
+    }
+
+    /**
+     * 清空所有缓存（配置重载时调用）
+     */
+    public void invalidateAll() {
+        bonuses.clear();
+    }
+
+    private static int compute(Player player) {
+        // 从高到低检查，命中的第一个即为最大值
+        for (int i = MAX_BONUS; i >= 1; i--) {
+            if (player.hasPermission(PERMISSIONS[i])) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        Player player = event.getPlayer();
+        bonuses.compute(player.getUniqueId(), (uuid, old) -> compute(player));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        // 按世界授予的权限可能随世界变化
+        invalidate(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        invalidate(event.getPlayer().getUniqueId());
+    }
+}
@@ -0,0 +1,98 @@
+package me.rrs.headdrop.drop;
+
+import org.bukkit.Keyed;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 服务端功能检测
+ * 在插件启用时通过反射一次性检测与版本相关的API是否存在，
+ * 变种注册表据此决定安装哪种解析器，死亡事件中不再抛出或捕获链接错误。
+ */
+public final class ServerCapabilities {
+
+    private static final ServerCapabilities INSTANCE = new ServerCapabilities();
+
+    /**
+     * 可检测的功能
+     */
+    public enum Capability {
+        CHICKEN_VARIANT("鸡的温度变种", "org.bukkit.entity.Chicken", "getVariant"),
+        COW_VARIANT("牛的温度变种", "org.bukkit.entity.Cow", "getVariant"),
+        PIG_VARIANT("猪的温度变种", "org.bukkit.entity.Pig", "getVariant"),
+        WOLF_VARIANT("狼的变种", "org.bukkit.entity.Wolf", "getVariant"),
+        FROG_VARIANT_KEYED("青蛙变种注册表", "org.bukkit.entity.Frog$Variant", null),
+        CAT_TYPE_KEYED("猫变种注册表", "org.bukkit.entity.Cat$Type", null),
+        ENTITY_SPAWN_REASON("实体生成原因", "org.bukkit.entity.Entity", "getEntitySpawnReason");
+
+        private final String displayName;
+        private final String className;
+        private final String methodName;
+
+        Capability(String displayName, String className, String methodName) {
+            this.displayName = displayName;
+            this.className = className;
+            this.methodName = methodName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        /**
+         * 有方法名时检测方法是否存在，否则检测类型是否实现了 Keyed
+         */
+        private boolean probe() {
+            try {
+                Class<?> type = Class.forName(className);
+                if (methodName != null) {
+                    type.getMethod(methodName);
+                    return true;
+                }
+                return Keyed.class.isAssignableFrom(type);
+            } catch (ClassNotFoundException | NoSuchMethodException | LinkageError e) {
+                return false;
+            }
+        }
+    }
+
+    private final Map<Capability, Boolean> detected;
+
+    private ServerCapabilities() {
+        Map<Capability, Boolean> map = new EnumMap<>(Capability.class);
+        for (Capability capability : Capability.values()) {
+            map.put(capability, capability.probe());
+        }
+        this.detected = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * 获取检测结果（首次访问时完成检测）
+     *
+     * @return 检测结果
+     */
+    public static ServerCapabilities get() {
+        return INSTANCE;
+    }
+
+    /**
+     * 检查功能是否可用
+     *
+     * @param capability 功能
+     * @return 是否可用
+     */
+    public boolean has(Capability capability) {
+        return detected.get(capability);
+    }
+
+    /**
+     * 获取全部检测结果
+     *
+     * @return 只读的检测结果
+     */
+    public Map<Capability, Boolean> getDetected() {
+        return detected;
+    }
+}
@@ -0,0 +1,429 @@
+package me.rrs.headdrop.drop;
+
+import me.rrs.headdrop.database.EntityHead;
+import me.rrs.headdrop.drop.ServerCapabilities.Capability;
+import me.rrs.headdrop.util.SkullCreator;
+import org.bukkit.DyeColor;
+import org.bukkit.Keyed;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.*;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 头颅变种解析注册表
+ * 每个实体类型对应一个在启动时预先构建好的查找表：
+ * 枚举变种按 ordinal 索引数组，注册表变种按 NamespacedKey 查表，
+ * 死亡事件中不再做任何字符串处理。新增变种只需要在表中加一行数据。
+ * 依赖新版本API的解析器只在 {@link ServerCapabilities} 检测到对应功能时安装。
+ */
+public final class VariantRegistry {
+
+    private final Map<EntityType, Entry> entries = new EnumMap<>(EntityType.class);
+    private final Map<String, EntityType> typesByName = new HashMap<>();
+    private final ServerCapabilities capabilities;
+
+    private VariantRegistry(ServerCapabilities capabilities) {
+        this.capabilities = capabilities;
+        for (EntityType type : EntityType.values()) {
+            typesByName.put(type.name(), type);
+        }
+    }
+
+    /**
+     * 单个实体类型的注册项
+     *
+     * @param resolver 头颅解析器
+     * @param vanillaDrop 需要从原版掉落中移除的头颅（没有则为null）
+     */
+    public record Entry(HeadResolver resolver, Material vanillaDrop) {
+    }
+
+    /**
+     * 获取所有注册项
+     *
+     * @return 只读的注册项映射
+     */
+    public Map<EntityType, Entry> entries() {
+        return Collections.unmodifiableMap(entries);
+    }
+
+    private void register(String typeName, Supplier<Entry> factory) {
+        EntityType type = typesByName.get(typeName);
+        if (type == null) return; // 当前服务器版本没有该实体
+
+        entries.put(type, factory.get());
+    }
+
+    private void fixed(String typeName, EntityHead head) {
+        register(typeName, () -> new Entry(entity -> head.getSkull(), null));
+    }
+
+    private void vanilla(String typeName, Material skull, boolean replaceVanillaDrop) {
+        register(typeName, () -> new Entry(entity -> new ItemStack(skull), replaceVanillaDrop ? skull : null));
+    }
+
+    private void resolver(String typeName, Supplier<HeadResolver> resolver) {
+        register(typeName, () -> new Entry(resolver.get(), null));
+    }
+
+    private void resolver(String typeName, Capability capability, Supplier<HeadResolver> resolver,
+                          Supplier<HeadResolver> fallback) {
+        resolver(typeName, capabilities.has(capability) ? resolver : fallback);
+    }
+
+    /**
+     * 创建包含所有内置实体的注册表
+     *
+     * @return 注册表
+     */
+    public static VariantRegistry createDefault() {
+        VariantRegistry registry = new VariantRegistry(ServerCapabilities.get());
+        registry.registerDefaults();
+        return registry;
+    }
+
+    private void registerDefaults() {
+        register("PLAYER", () -> new Entry(entity -> entity.hasPermission("headdrop.player")
+                ? SkullCreator.createSkullWithName(entity.getName()) : null, null));
+
+        vanilla("CREEPER", Material.CREEPER_HEAD, true);
+        vanilla("SKELETON", Material.SKELETON_SKULL, true);
+        vanilla("WITHER_SKELETON", Material.WITHER_SKELETON_SKULL, true);
+        vanilla("ZOMBIE", Material.ZOMBIE_HEAD, true);
+        vanilla("ENDER_DRAGON", Material.DRAGON_HEAD, false);
+
+        resolver("BEE", () -> flag(Bee.class, bee -> bee.getAnger() > 0,
+                fixedHead(EntityHead.BEE_AWARE), fixedHead(EntityHead.BEE)));
+        resolver("STRIDER", () -> flag(Strider.class, Strider::isShivering,
+                fixedHead(EntityHead.STRIDER_SHIVERING), fixedHead(EntityHead.STRIDER)));
+        resolver("PANDA", () -> enumTable(Panda.Gene.class, EntityHead.PANDA)
+                .map(Panda.Gene.BROWN, EntityHead.PANDA_BROWN)
+                .resolve(Panda.class, Panda::getMainGene));
+
+        resolver("MOOSHROOM", () -> enumTable(MushroomCow.Variant.class, EntityHead.MOOSHROOM_COW_RED)
+                .map(MushroomCow.Variant.RED, EntityHead.MOOSHROOM_COW_RED)
+                .map(MushroomCow.Variant.BROWN, EntityHead.MOOSHROOM_COW_BROWN)
+                .resolve(MushroomCow.class, MushroomCow::getVariant));
+
+        resolver("ZOMBIE_VILLAGER", () -> keyTable(EntityHead.ZOMBIE_VILLAGER_NULL)
+                .map("armorer", EntityHead.ZOMBIE_VILLAGER_ARMORER)
+                .map("butcher", EntityHead.ZOMBIE_VILLAGER_BUTCHER)
+                .map("cartographer", EntityHead.ZOMBIE_VILLAGER_CARTOGRAPHER)
+                .map("cleric", EntityHead.ZOMBIE_VILLAGER_CLERIC)
+                .map("farmer", EntityHead.ZOMBIE_VILLAGER_FARMER)
+                .map("fisherman", EntityHead.ZOMBIE_VILLAGER_FISHERMAN)
+                .map("fletcher", EntityHead.ZOMBIE_VILLAGER_FLETCHER)
+                .map("librarian", EntityHead.ZOMBIE_VILLAGER_LIBRARIAN)
+                .map("shepherd", EntityHead.ZOMBIE_VILLAGER_SHEPHERD)
+                .map("weaponsmith", EntityHead.ZOMBIE_VILLAGER_WEAPONSMITH)
+                .resolve(ZombieVillager.class, ZombieVillager::getVillagerProfession));
+
+        resolver("VILLAGER", () -> keyTable(EntityHead.VILLAGER_NULL)
+                .map("armorer", EntityHead.VILLAGER_ARMORER)
+                .map("butcher", EntityHead.VILLAGER_BUTCHER)
+                .map("cartographer", EntityHead.VILLAGER_CARTOGRAPHER)
+                .map("cleric", EntityHead.VILLAGER_CLERIC)
+                .map("farmer", EntityHead.VILLAGER_FARMER)
+                .map("fisherman", EntityHead.VILLAGER_FISHERMAN)
+                .map("fletcher", EntityHead.VILLAGER_FLETCHER)
+                .map("leatherworker", EntityHead.VILLAGER_LEATHERWORKER)
+                .map("librarian", EntityHead.VILLAGER_LIBRARIAN)
+                .map("mason", EntityHead.VILLAGER_MASON)
+                .map("shepherd", EntityHead.VILLAGER_SHEPHERD)
+                .map("toolsmith", EntityHead.VILLAGER_TOOLSMITH)
+                .map("weaponsmith", EntityHead.VILLAGER_WEAPONSMITH)
+                .resolve(Villager.class, Villager::getProfession));
+
+        resolver("PARROT", () -> enumTable(Parrot.Variant.class, EntityHead.PARROT_RED)
+                .map(Parrot.Variant.BLUE, EntityHead.PARROT_BLUE)
+                .map(Parrot.Variant.CYAN, EntityHead.PARROT_CYAN)
+                .map(Parrot.Variant.GRAY, EntityHead.PARROT_GRAY)
+                .map(Parrot.Variant.RED, EntityHead.PARROT_RED)
+                .map(Parrot.Variant.GREEN, EntityHead.PARROT_GREEN)
+                .resolve(Parrot.class, Parrot::getVariant));
+
+        resolver("TROPICAL_FISH", () -> enumTable(DyeColor.class, EntityHead.TROPICAL_FISH_RED)
+                .map(DyeColor.MAGENTA, EntityHead.TROPICAL_FISH_MAGENTA)
+                .map(DyeColor.LIGHT_BLUE, EntityHead.TROPICAL_FISH_LIGHT_BLUE)
+                .map(DyeColor.YELLOW, EntityHead.TROPICAL_FISH_YELLOW)
+                .map(DyeColor.PINK, EntityHead.TROPICAL_FISH_PINK)
+                .map(DyeColor.GRAY, EntityHead.TROPICAL_FISH_GRAY)
+                .map(DyeColor.LIGHT_GRAY, EntityHead.TROPICAL_FISH_LIGHT_GRAY)
+                .map(DyeColor.CYAN, EntityHead.TROPICAL_FISH_CYAN)
+                .map(DyeColor.BLUE, EntityHead.TROPICAL_FISH_BLUE)
+                .map(DyeColor.GREEN, EntityHead.TROPICAL_FISH_GREEN)
+                .map(DyeColor.RED, EntityHead.TROPICAL_FISH_RED)
+                .map(DyeColor.BLACK, EntityHead.TROPICAL_FISH_BLACK)
+                .map(DyeColor.ORANGE, EntityHead.TROPICAL_FISH_ORANGE)
+                .resolve(TropicalFish.class, TropicalFish::getBodyColor));
+
+        // 行商羊驼沿用普通羊驼的头颅
+        for (String llama : List.of("LLAMA", "TRADER_LLAMA")) {
+            resolver(llama, () -> enumTable(Llama.Color.class, EntityHead.LLAMA_CREAMY)
+                    .map(Llama.Color.BROWN, EntityHead.LLAMA_BROWN)
+                    .map(Llama.Color.GRAY, EntityHead.LLAMA_GRAY)
+                    .map(Llama.Color.CREAMY, EntityHead.LLAMA_CREAMY)
+                    .map(Llama.Color.WHITE, EntityHead.LLAMA_WHITE)
+                    .resolve(Llama.class, Llama::getColor));
+        }
+
+        resolver("FOX", () -> enumTable(Fox.Type.class, EntityHead.FOX)
+                .map(Fox.Type.RED, EntityHead.FOX)
+                .map(Fox.Type.SNOW, EntityHead.FOX_WHITE)
+                .resolve(Fox.class, Fox::getFoxType));
+
+        resolver("CAT", Capability.CAT_TYPE_KEYED, () -> keyTable(EntityHead.CAT_TABBY)
+                .map("black", EntityHead.CAT_BLACK)
+                .map("british_shorthair", EntityHead.CAT_BRITISH)
+                .map("calico", EntityHead.CAT_CALICO)
+                .map("jellie", EntityHead.CAT_JELLIE)
+                .map("persian", EntityHead.CAT_PERSIAN)
+                .map("ragdoll", EntityHead.CAT_RAGDOLL)
+                .map("red", EntityHead.CAT_RED)
+                .map("siamese", EntityHead.CAT_SIAMESE)
+                .map("tabby", EntityHead.CAT_TABBY)
+                .map("all_black", EntityHead.CAT_ALL_BLACK)
+                .map("white", EntityHead.CAT_WHITE)
+                .resolve(Cat.class, Cat::getCatType),
+                () -> fixedHead(EntityHead.CAT_TABBY));
+
+        resolver("AXOLOTL", () -> enumTable(Axolotl.Variant.class, EntityHead.AXOLOTL_LUCY)
+                .map(Axolotl.Variant.LUCY, EntityHead.AXOLOTL_LUCY)
+                .map(Axolotl.Variant.BLUE, EntityHead.AXOLOTL_BLUE)
+                .map(Axolotl.Variant.WILD, EntityHead.AXOLOTL_WILD)
+                .map(Axolotl.Variant.CYAN, EntityHead.AXOLOTL_CYAN)
+                .map(Axolotl.Variant.GOLD, EntityHead.AXOLOTL_GOLD)
+                .resolve(Axolotl.class, Axolotl::getVariant));
+
+        resolver("FROG", Capability.FROG_VARIANT_KEYED,
+                () -> temperateTable(EntityHead.FROG_TEMPERATE, EntityHead.FROG_COLD, EntityHead.FROG_WARM)
+                        .resolve(Frog.class, Frog::getVariant),
+                () -> fixedHead(EntityHead.FROG_TEMPERATE));
+
+        resolver("HORSE", () -> enumTable(Horse.Color.class, EntityHead.HORSE_WHITE)
+                .map(Horse.Color.WHITE, EntityHead.HORSE_WHITE)
+                .map(Horse.Color.CREAMY, EntityHead.HORSE_CREAMY)
+                .map(Horse.Color.CHESTNUT, EntityHead.HORSE_CHESTNUT)
+                .map(Horse.Color.BROWN, EntityHead.HORSE_BROWN)
+                .map(Horse.Color.BLACK, EntityHead.HORSE_BLACK)
+                .map(Horse.Color.GRAY, EntityHead.HORSE_GRAY)
+                .map(Horse.Color.DARK_BROWN, EntityHead.HORSE_DARK_BROWN)
+                .resolve(Horse.class, Horse::getColor));
+
+        resolver("SHEEP", () -> enumTable(DyeColor.class, EntityHead.SHEEP_WHITE)
+                .map(DyeColor.WHITE, EntityHead.SHEEP_WHITE)
+                .map(DyeColor.ORANGE, EntityHead.SHEEP_ORANGE)
+                .map(DyeColor.MAGENTA, EntityHead.SHEEP_MAGENTA)
+                .map(DyeColor.LIGHT_BLUE, EntityHead.SHEEP_LIGHT_BLUE)
+                .map(DyeColor.YELLOW, EntityHead.SHEEP_YELLOW)
+                .map(DyeColor.LIME, EntityHead.SHEEP_LIME)
+                .map(DyeColor.PINK, EntityHead.SHEEP_PINK)
+                .map(DyeColor.GRAY, EntityHead.SHEEP_GRAY)
+                .map(DyeColor.LIGHT_GRAY, EntityHead.SHEEP_LIGHT_GRAY)
+                .map(DyeColor.CYAN, EntityHead.SHEEP_CYAN)
+                .map(DyeColor.PURPLE, EntityHead.SHEEP_PURPLE)
+                .map(DyeColor.BLUE, EntityHead.SHEEP_BLUE)
+                .map(DyeColor.BROWN, EntityHead.SHEEP_BROWN)
+                .map(DyeColor.GREEN, EntityHead.SHEEP_GREEN)
+                .map(DyeColor.RED, EntityHead.SHEEP_RED)
+                .map(DyeColor.BLACK, EntityHead.SHEEP_BLACK)
+                .resolve(Sheep.class, Sheep::getColor));
+
+        resolver("WOLF", Capability.WOLF_VARIANT, () -> flag(Wolf.class, Wolf::isAngry,
+                keyTable(EntityHead.WOLF_PALE_ANGRY)
+                        .map("ashen", EntityHead.WOLF_ASHEN_ANGRY)
+                        .map("black", EntityHead.WOLF_BLACK_ANGRY)
+                        .map("chestnut", EntityHead.WOLF_CHESTNUT_ANGRY)
+                        .map("rusty", EntityHead.WOLF_RUSTY_ANGRY)
+                        .map("snowy", EntityHead.WOLF_SNOWY_ANGRY)
+                        .map("spotted", EntityHead.WOLF_SPOTTED_ANGRY)
+                        .map("striped", EntityHead.WOLF_STRIPED_ANGRY)
+                        .map("woods", EntityHead.WOLF_WOODS_ANGRY)
+                        .resolve(Wolf.class, Wolf::getVariant),
+                keyTable(EntityHead.WOLF_PALE)
+                        .map("ashen", EntityHead.WOLF_ASHEN)
+                        .map("black", EntityHead.WOLF_BLACK)
+                        .map("chestnut", EntityHead.WOLF_CHESTNUT)
+                        .map("rusty", EntityHead.WOLF_RUSTY)
+                        .map("snowy", EntityHead.WOLF_SNOWY)
+                        .map("spotted", EntityHead.WOLF_SPOTTED)
+                        .map("striped", EntityHead.WOLF_STRIPED)
+                        .map("woods", EntityHead.WOLF_WOODS)
+                        .resolve(Wolf.class, Wolf::getVariant)),
+                () -> flag(Wolf.class, Wolf::isAngry,
+                        fixedHead(EntityHead.WOLF_PALE_ANGRY), fixedHead(EntityHead.WOLF_PALE)));
+
+        resolver("RABBIT", () -> enumTable(Rabbit.Type.class, EntityHead.RABBIT_BROWN)
+                .map(Rabbit.Type.BROWN, EntityHead.RABBIT_BROWN)
+                .map(Rabbit.Type.WHITE, EntityHead.RABBIT_WHITE)
+                .map(Rabbit.Type.BLACK, EntityHead.RABBIT_BLACK)
+                .map(Rabbit.Type.BLACK_AND_WHITE, EntityHead.RABBIT_BLACK_AND_WHITE)
+                .map(Rabbit.Type.GOLD, EntityHead.RABBIT_GOLD)
+                .map(Rabbit.Type.SALT_AND_PEPPER, EntityHead.RABBIT_SALT_AND_PEPPER)
+                .map(Rabbit.Type.THE_KILLER_BUNNY, EntityHead.RABBIT_THE_KILLER_BUNNY)
+                .resolve(Rabbit.class, Rabbit::getRabbitType));
+
+        // 温度变种在旧版本服务器上不存在，缺失时退回温带头颅
+        resolver("CHICKEN", Capability.CHICKEN_VARIANT,
+                () -> temperateTable(EntityHead.CHICKEN_TEMPERATE, EntityHead.CHICKEN_COLD, EntityHead.CHICKEN_WARM)
+                        .resolve(Chicken.class, Chicken::getVariant),
+                () -> fixedHead(EntityHead.CHICKEN_TEMPERATE));
+        resolver("COW", Capability.COW_VARIANT,
+                () -> temperateTable(EntityHead.COW_TEMPERATE, EntityHead.COW_COLD, EntityHead.COW_WARM)
+                        .resolve(Cow.class, Cow::getVariant),
+                () -> fixedHead(EntityHead.COW_TEMPERATE));
+        resolver("PIG", Capability.PIG_VARIANT,
+                () -> temperateTable(EntityHead.PIG_TEMPERATE, EntityHead.PIG_COLD, EntityHead.PIG_WARM)
+                        .resolve(Pig.class, Pig::getVariant),
+                () -> fixedHead(EntityHead.PIG_TEMPERATE));
+
+        fixed("CREAKING", EntityHead.CREAKING);
+        fixed("CAVE_SPIDER", EntityHead.CAVE_SPIDER);
+        fixed("SPIDER", EntityHead.SPIDER);
+        fixed("BLAZE", EntityHead.BLAZE);
+        fixed("BAT", EntityHead.BAT);
+        fixed("ENDERMAN", EntityHead.ENDERMAN);
+        fixed("GIANT", EntityHead.GIANT);
+        fixed("ILLUSIONER", EntityHead.ILLUSIONER);
+        fixed("IRON_GOLEM", EntityHead.IRON_GOLEM);
+        fixed("MAGMA_CUBE", EntityHead.MAGMA_CUBE);
+        fixed("OCELOT", EntityHead.OCELOT);
+        fixed("SILVERFISH", EntityHead.SILVERFISH);
+        fixed("SNOW_GOLEM", EntityHead.SNOWMAN);
+        fixed("SNOWMAN", EntityHead.SNOWMAN);
+        fixed("SQUID", EntityHead.SQUID);
+        fixed("WITCH", EntityHead.WITCH);
+        fixed("WITHER", EntityHead.WITHER);
+        fixed("ZOMBIFIED_PIGLIN", EntityHead.ZOMBIFIED_PIGLIN);
+        fixed("GHAST", EntityHead.GHAST);
+        fixed("ENDERMITE", EntityHead.ENDERMITE);
+        fixed("GUARDIAN", EntityHead.GUARDIAN);
+        fixed("SHULKER", EntityHead.SHULKER);
+        fixed("POLAR_BEAR", EntityHead.POLAR_BEAR);
+        fixed("VINDICATOR", EntityHead.VINDICATOR);
+        fixed("VEX", EntityHead.VEX);
+        fixed("EVOKER", EntityHead.EVOKER);
+        fixed("HUSK", EntityHead.HUSK);
+        fixed("STRAY", EntityHead.STRAY);
+        fixed("ELDER_GUARDIAN", EntityHead.ELDER_GUARDIAN);
+        fixed("DONKEY", EntityHead.DONKEY);
+        fixed("ZOMBIE_HORSE", EntityHead.ZOMBIE_HORSE);
+        fixed("SKELETON_HORSE", EntityHead.SKELETON_HORSE);
+        fixed("MULE", EntityHead.MULE);
+        fixed("PUFFERFISH", EntityHead.PUFFERFISH);
+        fixed("SALMON", EntityHead.SALMON);
+        fixed("COD", EntityHead.COD);
+        fixed("TURTLE", EntityHead.TURTLE);
+        fixed("DOLPHIN", EntityHead.DOLPHIN);
+        fixed("PHANTOM", EntityHead.PHANTOM);
+        fixed("DROWNED", EntityHead.DROWNED);
+        fixed("WANDERING_TRADER", EntityHead.WANDERING_TRADER);
+        fixed("RAVAGER", EntityHead.RAVAGER);
+        fixed("PILLAGER", EntityHead.PILLAGER);
+        fixed("ZOGLIN", EntityHead.ZOGLIN);
+        fixed("PIGLIN", EntityHead.PIGLIN);
+        fixed("HOGLIN", EntityHead.HOGLIN);
+        fixed("PIGLIN_BRUTE", EntityHead.PIGLIN_BRUTE);
+        fixed("GLOW_SQUID", EntityHead.GLOW_SQUID);
+        fixed("GOAT", EntityHead.GOAT);
+        fixed("ALLAY", EntityHead.ALLAY);
+        fixed("TADPOLE", EntityHead.TADPOLE);
+        fixed("WARDEN", EntityHead.WARDEN);
+        fixed("CAMEL", EntityHead.CAMEL);
+        fixed("SNIFFER", EntityHead.SNIFFER);
+        fixed("ARMADILLO", EntityHead.ARMADILLO);
+        fixed("BREEZE", EntityHead.BREEZE);
+        fixed("BOGGED", EntityHead.BOGGED);
+        fixed("HAPPY_GHAST", EntityHead.HAPPY_GHAST);
+    }
+
+    // region 查找表构建
+
+    private static HeadResolver fixedHead(EntityHead head) {
+        return entity -> head.getSkull();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends LivingEntity> HeadResolver flag(Class<T> type, Predicate<? super T> predicate,
+                                                              HeadResolver whenTrue, HeadResolver whenFalse) {
+        return entity -> predicate.test((T) entity) ? whenTrue.resolve(entity) : whenFalse.resolve(entity);
+    }
+
+    private static <E extends Enum<E>> EnumTable<E> enumTable(Class<E> enumClass, EntityHead fallback) {
+        return new EnumTable<>(enumClass, fallback);
+    }
+
+    private static KeyTable keyTable(EntityHead fallback) {
+        return new KeyTable(fallback);
+    }
+
+    private static KeyTable temperateTable(EntityHead temperate, EntityHead cold, EntityHead warm) {
+        return keyTable(temperate)
+                .map("temperate", temperate)
+                .map("cold", cold)
+                .map("warm", warm);
+    }
+
+    /**
+     * 按枚举 ordinal 索引的变种表
+     */
+    private static final class EnumTable<E extends Enum<E>> {
+        private final EntityHead[] heads;
+        private final EntityHead fallback;
+
+        private EnumTable(Class<E> enumClass, EntityHead fallback) {
+            this.heads = new EntityHead[enumClass.getEnumConstants().length];
+            this.fallback = fallback;
+        }
+
+        private EnumTable<E> map(E variant, EntityHead head) {
+            heads[variant.ordinal()] = head;
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T extends LivingEntity> HeadResolver resolve(Class<T> type, Function<? super T, ? extends E> getter) {
+            EntityHead[] table = heads.clone();
+            Arrays.setAll(table, i -> table[i] != null ? table[i] : fallback);
+            return entity -> {
+                E variant = getter.apply((T) entity);
+                return (variant == null ? fallback : table[variant.ordinal()]).getSkull();
+            };
+        }
+    }
+
+    /**
+     * 按注册表 NamespacedKey 查找的变种表
+     */
+    private static final class KeyTable {
+        private final Map<NamespacedKey, EntityHead> heads = new HashMap<>();
+        private final EntityHead fallback;
+
+        private KeyTable(EntityHead fallback) {
+            this.fallback = fallback;
+        }
+
+        private KeyTable map(String key, EntityHead head) {
+            heads.put(NamespacedKey.minecraft(key), head);
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T extends LivingEntity> HeadResolver resolve(Class<T> type, Function<? super T, ? extends Keyed> getter) {
+            Map<NamespacedKey, EntityHead> table = Map.copyOf(heads);
+            return entity -> {
+                Keyed variant = getter.apply((T) entity);
+                EntityHead head = variant == null ? null : table.get(variant.getKey());
+                return (head != null ? head : fallback).getSkull();
+            };
+        }
+    }
+
+    // endregion
+}
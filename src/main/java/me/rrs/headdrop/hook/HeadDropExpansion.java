@@ -2,11 +2,14 @@ package me.rrs.headdrop.hook;
 
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import me.rrs.headdrop.HeadDrop;
+import me.rrs.headdrop.database.LeaderboardEntry;
+import me.rrs.headdrop.database.LeaderboardIndex;
+import me.rrs.headdrop.database.ScoreCache;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Map;
+import java.util.List;
 
 public class HeadDropExpansion extends PlaceholderExpansion {
     @Override
@@ -38,9 +41,30 @@ public class HeadDropExpansion extends PlaceholderExpansion {
 
         if (HeadDrop.getInstance().getDatabase() != null){
             if (params.equals("headcount")) {
-                Map<String, Integer> playerData = HeadDrop.getInstance().getDatabase().getPlayerData();
-                int playerHeadCount = playerData.getOrDefault(player.getName(), 0);
-                return String.valueOf(playerHeadCount);
+                // 积分尚未从数据库加载时不显示，避免显示为0或只有未写回的部分
+                ScoreCache scoreCache = HeadDrop.getInstance().getScoreCache();
+                if (!scoreCache.isLoaded(onlinePlayer.getUniqueId())) return "";
+                return String.valueOf(scoreCache.getScore(onlinePlayer.getUniqueId()));
+            }
+
+            // 排名类占位符只读取内存排行榜，不查询数据库
+            LeaderboardIndex index = HeadDrop.getInstance().getLeaderboard();
+            if (!index.isReady()) {
+                return "";
+            }
+            if (params.equals("rank")) {
+                int rank = index.getRank(onlinePlayer.getUniqueId());
+                return rank == 0 ? "" : String.valueOf(rank);
+            }
+            // top_<名次>_name / top_<名次>_score
+            if (params.startsWith("top_")) {
+                String[] parts = params.split("_");
+                if (parts.length == 3 && parts[1].matches("\\d{1,6}")) {
+                    List<LeaderboardEntry> entry = index.getTop(1, Integer.parseInt(parts[1]) - 1);
+                    if (entry.isEmpty()) return "";
+                    if (parts[2].equals("name")) return entry.get(0).name();
+                    if (parts[2].equals("score")) return String.valueOf(entry.get(0).score());
+                }
             }
         }
 
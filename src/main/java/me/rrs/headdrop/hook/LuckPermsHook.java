@@ -0,0 +1,22 @@
+package me.rrs.headdrop.hook;
+
+import me.rrs.headdrop.HeadDrop;
+import me.rrs.headdrop.drop.PermissionChanceCache;
+import net.luckperms.api.LuckPermsProvider;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
+
+public class LuckPermsHook {
+
+    public LuckPermsHook() {
+        LuckPermsProvider.get().getEventBus().subscribe(
+                HeadDrop.getInstance(),
+                UserDataRecalculateEvent.class,
+                this::onUserDataRecalculate
+        );
+    }
+
+    private void onUserDataRecalculate(UserDataRecalculateEvent event) {
+        // LuckPerms 可能在异步线程触发该事件，缓存本身是线程安全的
+        PermissionChanceCache.getInstance().invalidate(event.getUser().getUniqueId());
+    }
+}
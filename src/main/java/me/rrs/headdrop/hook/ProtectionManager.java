@@ -0,0 +1,203 @@
+package me.rrs.headdrop.hook;
+
+import me.rrs.headdrop.drop.DropSettings;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.server.ServerCommandEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 领地保护管理器
+ * 汇总所有 {@link ProtectionProvider} 的判定，并按区块段缓存结果。
+ * 缓存在超过配置的存活时间、执行领地命令或重载配置时失效；
+ * 缓存较多时定期清除已过期的区块段，单个世界超过上限时整体清空。
+ * 在 Folia 上各区域线程并发读写缓存，不经过全局锁。
+ */
+public final class ProtectionManager implements Listener {
+
+    private static final ProtectionManager INSTANCE = new ProtectionManager();
+
+    /**
+     * 修改领地后需要清空缓存的命令前缀
+     */
+    private static final String[] REGION_COMMANDS = {
+            "rg", "region", "regions", "worldguard:rg", "worldguard:region", "worldguard:regions"
+    };
+
+    private final List<ProtectionProvider> providers = new CopyOnWriteArrayList<>();
+    private final Map<UUID, Map<Long, CachedDecision>> cache = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep = new AtomicLong();
+
+    private static final int SWEEP_THRESHOLD = 4096;
+    private static final int MAX_SECTIONS_PER_WORLD = 65536;
+    private static final long SWEEP_INTERVAL_MILLIS = 1000L;
+
+    private ProtectionManager() {
+    }
+
+    public static ProtectionManager getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 注册保护提供者
+     *
+     * @param provider 提供者
+     */
+    public void register(ProtectionProvider provider) {
+        providers.add(provider);
+        invalidateAll();
+    }
+
+    /**
+     * 注销保护提供者
+     *
+     * @param provider 提供者
+     */
+    public void unregister(ProtectionProvider provider) {
+        providers.remove(provider);
+        invalidateAll();
+    }
+
+    /**
+     * 获取已注册的提供者
+     *
+     * @return 提供者列表（只读）
+     */
+    public List<ProtectionProvider> getProviders() {
+        return List.copyOf(providers);
+    }
+
+    /**
+     * 检查该位置是否允许掉落头颅
+     *
+     * @param location 位置
+     * @return 是否允许
+     */
+    public boolean canDrop(Location location) {
+        if (providers.isEmpty()) return true;
+
+        World world = location.getWorld();
+        if (world == null) return true;
+
+        int chunkX = location.getBlockX() >> 4;
+        int sectionY = location.getBlockY() >> 4;
+        int chunkZ = location.getBlockZ() >> 4;
+
+        ProtectionProvider.Decision decision = sectionDecision(world, chunkX, sectionY, chunkZ);
+        if (decision != ProtectionProvider.Decision.MIXED) {
+            return decision == ProtectionProvider.Decision.ALLOW;
+        }
+
+        for (ProtectionProvider provider : providers) {
+            if (!provider.canDrop(location)) return false;
+        }
+        return true;
+    }
+
+    private ProtectionProvider.Decision sectionDecision(World world, int chunkX, int sectionY, int chunkZ) {
+        long key = sectionKey(chunkX, sectionY, chunkZ);
+        long now = System.currentTimeMillis();
+
+        Map<Long, CachedDecision> worldCache = cache.computeIfAbsent(world.getUID(), id -> new ConcurrentHashMap<>());
+        CachedDecision cached = worldCache.get(key);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.decision;
+        }
+
+        ProtectionProvider.Decision decision = ProtectionProvider.Decision.ALLOW;
+        for (ProtectionProvider provider : providers) {
+            ProtectionProvider.Decision result = provider.decideSection(world, chunkX, sectionY, chunkZ);
+            if (result == ProtectionProvider.Decision.DENY) {
+                decision = result;
+                break;
+            }
+            if (result == ProtectionProvider.Decision.MIXED) {
+                decision = result;
+            }
+        }
+
+        worldCache.put(key, new CachedDecision(decision, now + DropSettings.current().getProtectionCacheTtl()));
+        if (worldCache.size() > SWEEP_THRESHOLD) {
+            sweep(now);
+        }
+        return decision;
+    }
+
+    /**
+     * 清除过期的缓存，同一时间只有一个线程执行，并且每秒最多一次
+     */
+    private void sweep(long now) {
+        long next = nextSweep.get();
+        if (now < next || !nextSweep.compareAndSet(next, now + SWEEP_INTERVAL_MILLIS)) return;
+
+        for (Map<Long, CachedDecision> worldCache : cache.values()) {
+            worldCache.values().removeIf(cached -> cached.expiresAt <= now);
+            if (worldCache.size() > MAX_SECTIONS_PER_WORLD) {
+                worldCache.clear();
+            }
+        }
+    }
+
+    private static long sectionKey(int chunkX, int sectionY, int chunkZ) {
+        return ((long) (chunkX & 0x3FFFFF) << 42)
+                | ((long) (chunkZ & 0x3FFFFF) << 20)
+                | (sectionY & 0xFFFFF);
+    }
+
+    /**
+     * 清空全部缓存
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    /**
+     * 清空某个世界的缓存
+     *
+     * @param world 世界
+     */
+    public void invalidate(World world) {
+        cache.remove(world.getUID());
+    }
+
+    private static boolean isRegionCommand(String commandLine) {
+        String line = commandLine.startsWith("/") ? commandLine.substring(1) : commandLine;
+        int space = line.indexOf(' ');
+        String label = (space < 0 ? line : line.substring(0, space)).toLowerCase(Locale.ROOT);
+        for (String command : REGION_COMMANDS) {
+            if (command.equals(label)) return true;
+        }
+        return false;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerCommand(PlayerCommandPreprocessEvent event) {
+        if (isRegionCommand(event.getMessage())) invalidateAll();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onServerCommand(ServerCommandEvent event) {
+        if (isRegionCommand(event.getCommand())) invalidateAll();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        invalidate(event.getWorld());
+    }
+
+    private record CachedDecision(ProtectionProvider.Decision decision, long expiresAt) {
+    }
+}
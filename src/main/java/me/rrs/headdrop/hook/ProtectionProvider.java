@@ -0,0 +1,47 @@
+package me.rrs.headdrop.hook;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+/**
+ * 领地保护提供者
+ * WorldGuard 以及其他领地插件通过该接口决定某处是否允许掉落头颅。
+ * 区块段（16x16x16）的判定结果会被 {@link ProtectionManager} 缓存。
+ */
+public interface ProtectionProvider {
+
+    /**
+     * 提供者名称，用于日志和调试
+     *
+     * @return 名称
+     */
+    String getName();
+
+    /**
+     * 判定整个区块段是否允许掉落
+     *
+     * @param world 世界
+     * @param chunkX 区块X
+     * @param sectionY 区块段Y（方块Y >> 4）
+     * @param chunkZ 区块Z
+     * @return 判定结果，区块段内结果不一致时返回 {@link Decision#MIXED}
+     */
+    Decision decideSection(World world, int chunkX, int sectionY, int chunkZ);
+
+    /**
+     * 精确判定某个位置是否允许掉落，仅在区块段判定为 MIXED 时调用
+     *
+     * @param location 位置
+     * @return 是否允许
+     */
+    boolean canDrop(Location location);
+
+    /**
+     * 区块段判定结果
+     */
+    enum Decision {
+        ALLOW,
+        DENY,
+        MIXED
+    }
+}
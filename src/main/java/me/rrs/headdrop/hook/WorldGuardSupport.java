@@ -2,34 +2,62 @@ package me.rrs.headdrop.hook;
 
 
 import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldguard.WorldGuard;
 import com.sk89q.worldguard.protection.ApplicableRegionSet;
 import com.sk89q.worldguard.protection.flags.Flag;
 import com.sk89q.worldguard.protection.flags.StateFlag;
 import com.sk89q.worldguard.protection.flags.registry.FlagConflictException;
 import com.sk89q.worldguard.protection.flags.registry.FlagRegistry;
+import com.sk89q.worldguard.protection.managers.RegionManager;
+import com.sk89q.worldguard.protection.regions.ProtectedCuboidRegion;
 import com.sk89q.worldguard.protection.regions.ProtectedRegion;
-import com.sk89q.worldguard.protection.regions.RegionContainer;
 import com.sk89q.worldguard.protection.regions.RegionQuery;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.World;
 
 
-public class WorldGuardSupport {
+public class WorldGuardSupport implements ProtectionProvider {
     private static StateFlag HEADDROP_FLAG;
+    private static final String PROBE_ID = "headdrop_section_probe";
 
 
-    public static boolean canDrop(Location loc){
-        WorldGuard wGuard = WorldGuard.getInstance();
-        for (ProtectedRegion k : wGuard.getPlatform().getRegionContainer().get(BukkitAdapter.adapt(loc.getWorld())).getRegions().values()) {
-            if (k.contains(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ())) {
-                RegionContainer container = WorldGuard.getInstance().getPlatform().getRegionContainer();
-                RegionQuery query = container.createQuery();
-                ApplicableRegionSet set = query.getApplicableRegions(BukkitAdapter.adapt(loc));
-                return set.testState(null, HEADDROP_FLAG);
+    @Override
+    public String getName() {
+        return "WorldGuard";
+    }
+
+    @Override
+    public Decision decideSection(World world, int chunkX, int sectionY, int chunkZ) {
+        if (HEADDROP_FLAG == null) return Decision.ALLOW;
+
+        RegionManager manager = WorldGuard.getInstance().getPlatform().getRegionContainer().get(BukkitAdapter.adapt(world));
+        if (manager == null) return Decision.ALLOW;
+
+        BlockVector3 min = BlockVector3.at(chunkX << 4, sectionY << 4, chunkZ << 4);
+        BlockVector3 max = min.add(15, 15, 15);
+        // 通过区域索引查询与区块段相交的区域，不再遍历世界中的全部区域
+        ApplicableRegionSet set = manager.getApplicableRegions(new ProtectedCuboidRegion(PROBE_ID, min, max));
+        if (set.size() == 0) return Decision.ALLOW;
+
+        for (ProtectedRegion region : set) {
+            // 只有完全覆盖区块段的长方体区域才能保证段内判定一致
+            if (!(region instanceof ProtectedCuboidRegion) || !region.contains(min) || !region.contains(max)) {
+                return Decision.MIXED;
             }
         }
-        return true;
+        return set.testState(null, HEADDROP_FLAG) ? Decision.ALLOW : Decision.DENY;
+    }
+
+    @Override
+    public boolean canDrop(Location loc) {
+        if (HEADDROP_FLAG == null) return true;
+
+        RegionQuery query = WorldGuard.getInstance().getPlatform().getRegionContainer().createQuery();
+        ApplicableRegionSet set = query.getApplicableRegions(BukkitAdapter.adapt(loc));
+        if (set.size() == 0) return true;
+        return set.testState(null, HEADDROP_FLAG);
     }
 
     public WorldGuardSupport(){
@@ -2,6 +2,7 @@ package me.rrs.headdrop.listener;
 
 import me.rrs.headdrop.HeadDrop;
 import me.rrs.headdrop.database.EntityHead;
+import me.rrs.headdrop.util.TaskScheduler;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.Bukkit;
@@ -118,7 +119,7 @@ public class HeadGUI implements InventoryHolder {
             if (data.has(BUTTON_KEY, PersistentDataType.STRING)) {
                 String buttonType = data.get(BUTTON_KEY, PersistentDataType.STRING);
                 handleButtonClick(gui, buttonType, player);
-            } else if (e.getRawSlot() >= 9 && e.getRawSlot() < gui.getInventory().getSize()) {
+            } else if (e.getRawSlot() >= 9 && e.getRawSlot() < INVENTORY_ROWS * 9) {
                 handleItemTake(player, clicked);
             }
         }
@@ -128,7 +129,8 @@ public class HeadGUI implements InventoryHolder {
                 case "previous" -> gui.currentPage = Math.max(0, gui.currentPage - 1);
                 case "next" -> gui.currentPage = Math.min(gui.getTotalPages() - 1, gui.currentPage + 1);
             }
-            player.openInventory(gui.getInventory());
+            // 不在点击事件中直接切换界面，下一tick在玩家所在的线程打开
+            TaskScheduler.runAtEntity(player, () -> player.openInventory(gui.getInventory()));
         }
 
         private void handleItemTake(Player player, ItemStack item) {
@@ -1,16 +1,11 @@
 package me.rrs.headdrop.util;
 
-import me.clip.placeholderapi.PlaceholderAPI;
-import org.bukkit.Bukkit;
-import org.bukkit.ChatColor;
+import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.List;
 
 /**
  * 物品工具类
@@ -19,54 +14,53 @@ import java.util.List;
  */
 public class ItemUtils {
 
+    /**
+     * 武器中文名缓存，按Material序号索引
+     */
+    private static final String[] WEAPON_NAMES = new String[Material.values().length];
+
     /**
      * 为头颅物品添加Lore信息
      * 
      * @param head 头颅物品
-     * @param rawLore 原始Lore列表
+     * @param template 预编译的Lore模板
      * @param killer 击杀者玩家（可为null）
      */
-    public void addLore(ItemStack head, List<String> rawLore, Player killer) {
-        // 检查Lore列表是否为空
-        if (rawLore == null || rawLore.isEmpty()) return;
+    public void addLore(ItemStack head, LoreTemplate template, Player killer) {
+        // 检查Lore模板是否为空
+        if (template == null || template.isEmpty()) return;
 
         ItemMeta itemMeta = head.getItemMeta();
         // 如果物品没有元数据，则无法添加Lore
         if (itemMeta == null) return;
-        
-        List<String> finalLore = new ArrayList<>();
-
-        // 处理每行Lore
-        rawLore.forEach(lore -> {
-            if (!lore.trim().isEmpty()) {
-                // 替换占位符
-                lore = lore
-                        .replace("{KILLER}", killer != null ? killer.getName() : "未知")
-                        .replace("{DATE}", LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy年MM月dd日")))
-                        .replace("{WEAPON}", killer != null ? getWeaponDisplayName(killer.getInventory().getItemInMainHand().getType().toString()) : "未知");
-                
-                // 支持PlaceholderAPI
-                if (Bukkit.getPluginManager().isPluginEnabled("PlaceholderAPI")) {
-                    lore = killer != null ? PlaceholderAPI.setPlaceholders(killer, lore) : PlaceholderAPI.setPlaceholders(null, lore);
-                }
-                
-                // 转换颜色代码并添加到最终Lore列表
-                finalLore.add(ChatColor.translateAlternateColorCodes('&', lore));
-            }
-        });
 
         // 设置Lore并更新物品
-        itemMeta.setLore(finalLore);
+        itemMeta.lore(template.render(killer));
         head.setItemMeta(itemMeta);
     }
 
+    /**
+     * 获取武器显示名称（将英文转换为中文），结果按材质缓存
+     * 
+     * @param type 武器材质
+     * @return 武器中文显示名称
+     */
+    static String getWeaponDisplayName(Material type) {
+        String name = WEAPON_NAMES[type.ordinal()];
+        if (name == null) {
+            name = getWeaponDisplayName(type.name());
+            WEAPON_NAMES[type.ordinal()] = name;
+        }
+        return name;
+    }
+
     /**
      * 获取武器显示名称（将英文转换为中文）
      * 
      * @param weaponType 武器类型英文名称
      * @return 武器中文显示名称
      */
-    private String getWeaponDisplayName(String weaponType) {
+    private static String getWeaponDisplayName(String weaponType) {
         // 常见武器类型的中文映射
         switch (weaponType.toUpperCase()) {
             case "DIAMOND_SWORD":
@@ -113,7 +107,7 @@ public class ItemUtils {
      * @param weaponName 武器名称
      * @return 格式化的武器名称
      */
-    private String formatWeaponName(String weaponName) {
+    private static String formatWeaponName(String weaponName) {
         if (weaponName == null || weaponName.isEmpty()) {
             return "未知";
         }
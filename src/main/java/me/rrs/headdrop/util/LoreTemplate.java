@@ -0,0 +1,202 @@
+package me.rrs.headdrop.util;
+
+import me.clip.placeholderapi.PlaceholderAPI;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 预编译的Lore模板
+ * 配置中的 Lores 在加载时被拆分为字面量片段和占位符，
+ * 渲染时只拼接动态部分；没有动态内容的行直接复用预先生成的组件。
+ */
+public final class LoreTemplate {
+
+    private static final LoreTemplate EMPTY = new LoreTemplate(new Line[0]);
+    private static final LegacyComponentSerializer SERIALIZER = LegacyComponentSerializer.legacySection();
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy年MM月dd日");
+    private static final String UNKNOWN = "未知";
+
+    private static volatile DateCache dateCache = new DateCache("", 0L);
+
+    private final Line[] lines;
+    private final List<Component> staticLore;
+
+    private LoreTemplate(Line[] lines) {
+        this.lines = lines;
+        this.staticLore = allStatic(lines) ? toComponents(lines) : null;
+    }
+
+    /**
+     * 编译Lore配置
+     *
+     * @param rawLore 原始Lore列表
+     * @param placeholderApi 是否启用PlaceholderAPI
+     * @return 编译后的模板
+     */
+    public static LoreTemplate compile(List<String> rawLore, boolean placeholderApi) {
+        if (rawLore == null || rawLore.isEmpty()) return EMPTY;
+
+        List<Line> lines = new ArrayList<>();
+        for (String raw : rawLore) {
+            if (raw == null || raw.trim().isEmpty()) continue;
+            lines.add(Line.compile(raw, placeholderApi));
+        }
+        return lines.isEmpty() ? EMPTY : new LoreTemplate(lines.toArray(new Line[0]));
+    }
+
+    /**
+     * 模板是否为空
+     *
+     * @return 是否为空
+     */
+    public boolean isEmpty() {
+        return lines.length == 0;
+    }
+
+    /**
+     * 渲染Lore
+     *
+     * @param killer 击杀者（可为null）
+     * @return 渲染后的Lore组件列表
+     */
+    public List<Component> render(Player killer) {
+        if (staticLore != null) return staticLore;
+
+        List<Component> rendered = new ArrayList<>(lines.length);
+        for (Line line : lines) {
+            rendered.add(line.render(killer));
+        }
+        return rendered;
+    }
+
+    private static boolean allStatic(Line[] lines) {
+        for (Line line : lines) {
+            if (line.staticComponent == null) return false;
+        }
+        return true;
+    }
+
+    private static List<Component> toComponents(Line[] lines) {
+        List<Component> components = new ArrayList<>(lines.length);
+        for (Line line : lines) {
+            components.add(line.staticComponent);
+        }
+        return Collections.unmodifiableList(components);
+    }
+
+    /**
+     * 获取当天的日期字符串，每天只格式化一次
+     */
+    private static String today() {
+        DateCache cache = dateCache;
+        long now = System.currentTimeMillis();
+        if (now >= cache.validUntil) {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate date = LocalDate.now(zone);
+            cache = new DateCache(date.format(DATE_FORMAT),
+                    date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+            dateCache = cache;
+        }
+        return cache.text;
+    }
+
+    private record DateCache(String text, long validUntil) {
+    }
+
+    private enum Placeholder {
+        KILLER("{KILLER}"),
+        DATE("{DATE}"),
+        WEAPON("{WEAPON}");
+
+        private final String token;
+
+        Placeholder(String token) {
+            this.token = token;
+        }
+
+        private String value(Player killer) {
+            return switch (this) {
+                case KILLER -> killer != null ? killer.getName() : UNKNOWN;
+                case DATE -> today();
+                case WEAPON -> killer != null
+                        ? ItemUtils.getWeaponDisplayName(killer.getInventory().getItemInMainHand().getType())
+                        : UNKNOWN;
+            };
+        }
+    }
+
+    /**
+     * 单行模板：literals[0] + placeholders[0] + literals[1] + ... + literals[n]
+     */
+    private static final class Line {
+        private final String[] literals;
+        private final Placeholder[] placeholders;
+        private final boolean placeholderApi;
+        private final Component staticComponent;
+        private final int estimatedLength;
+
+        private Line(String[] literals, Placeholder[] placeholders, boolean placeholderApi) {
+            this.literals = literals;
+            this.placeholders = placeholders;
+            this.placeholderApi = placeholderApi;
+            int length = 0;
+            for (String literal : literals) length += literal.length();
+            this.estimatedLength = length + placeholders.length * 16;
+            this.staticComponent = placeholders.length == 0 && !placeholderApi
+                    ? SERIALIZER.deserialize(ChatColor.translateAlternateColorCodes('&', literals[0]))
+                    : null;
+        }
+
+        private static Line compile(String raw, boolean placeholderApi) {
+            List<String> literals = new ArrayList<>();
+            List<Placeholder> placeholders = new ArrayList<>();
+
+            int start = 0;
+            while (true) {
+                int next = -1;
+                Placeholder found = null;
+                for (Placeholder placeholder : Placeholder.values()) {
+                    int index = raw.indexOf(placeholder.token, start);
+                    if (index >= 0 && (next < 0 || index < next)) {
+                        next = index;
+                        found = placeholder;
+                    }
+                }
+                if (found == null) break;
+
+                literals.add(raw.substring(start, next));
+                placeholders.add(found);
+                start = next + found.token.length();
+            }
+            literals.add(raw.substring(start));
+
+            return new Line(literals.toArray(new String[0]), placeholders.toArray(new Placeholder[0]),
+                    placeholderApi && raw.indexOf('%') >= 0);
+        }
+
+        private Component render(Player killer) {
+            if (staticComponent != null) return staticComponent;
+
+            StringBuilder builder = new StringBuilder(estimatedLength);
+            for (int i = 0; i < placeholders.length; i++) {
+                builder.append(literals[i]).append(placeholders[i].value(killer));
+            }
+            builder.append(literals[placeholders.length]);
+
+            String text = builder.toString();
+            if (placeholderApi) {
+                text = PlaceholderAPI.setPlaceholders(killer, text);
+            }
+            return SERIALIZER.deserialize(ChatColor.translateAlternateColorCodes('&', text));
+        }
+    }
+}
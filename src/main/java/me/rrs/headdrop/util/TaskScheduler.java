@@ -0,0 +1,134 @@
+package me.rrs.headdrop.util;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import me.rrs.headdrop.HeadDrop;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任务调度工具类
+ * 在 Folia 上使用全局区域、区域、实体和异步调度器，
+ * 在普通服务端上使用 Bukkit 调度器，调用方无需关心当前平台。
+ */
+public final class TaskScheduler {
+
+    private static final boolean FOLIA = detectFolia();
+    private static final long MILLIS_PER_TICK = 50L;
+
+    private TaskScheduler() {
+    }
+
+    private static boolean detectFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 是否运行在 Folia 上
+     *
+     * @return 是否为Folia
+     */
+    public static boolean isFolia() {
+        return FOLIA;
+    }
+
+    /**
+     * 在下一tick的全局线程（普通服务端即主线程）执行任务
+     *
+     * @param task 任务
+     */
+    public static void runGlobal(Runnable task) {
+        if (FOLIA) {
+            Bukkit.getGlobalRegionScheduler().execute(HeadDrop.getInstance(), task);
+        } else {
+            Bukkit.getScheduler().runTask(HeadDrop.getInstance(), task);
+        }
+    }
+
+    /**
+     * 异步执行任务
+     *
+     * @param task 任务
+     */
+    public static void runAsync(Runnable task) {
+        if (FOLIA) {
+            Bukkit.getAsyncScheduler().runNow(HeadDrop.getInstance(), scheduled -> task.run());
+        } else {
+            Bukkit.getScheduler().runTaskAsynchronously(HeadDrop.getInstance(), task);
+        }
+    }
+
+    /**
+     * 异步周期执行任务
+     *
+     * @param task 任务
+     * @param delayTicks 首次延迟（tick）
+     * @param periodTicks 周期（tick）
+     * @return 可取消的任务句柄
+     */
+    public static Task runAsyncTimer(Runnable task, long delayTicks, long periodTicks) {
+        if (FOLIA) {
+            ScheduledTask scheduled = Bukkit.getAsyncScheduler().runAtFixedRate(HeadDrop.getInstance(),
+                    t -> task.run(), delayTicks * MILLIS_PER_TICK, periodTicks * MILLIS_PER_TICK, TimeUnit.MILLISECONDS);
+            return scheduled::cancel;
+        }
+        BukkitTask scheduled = Bukkit.getScheduler().runTaskTimerAsynchronously(HeadDrop.getInstance(), task, delayTicks, periodTicks);
+        return scheduled::cancel;
+    }
+
+    /**
+     * 在实体所在的区域线程执行任务，实体已被移除时任务会被丢弃
+     *
+     * @param entity 实体
+     * @param task 任务
+     */
+    public static void runAtEntity(Entity entity, Runnable task) {
+        if (FOLIA) {
+            entity.getScheduler().run(HeadDrop.getInstance(), scheduled -> task.run(), null);
+        } else {
+            Bukkit.getScheduler().runTask(HeadDrop.getInstance(), task);
+        }
+    }
+
+    /**
+     * 在位置所在的区域线程执行任务
+     *
+     * @param location 位置
+     * @param task 任务
+     */
+    public static void runAtLocation(Location location, Runnable task) {
+        if (FOLIA) {
+            Bukkit.getRegionScheduler().execute(HeadDrop.getInstance(), location, task);
+        } else {
+            Bukkit.getScheduler().runTask(HeadDrop.getInstance(), task);
+        }
+    }
+
+    /**
+     * 取消插件的所有任务（插件禁用时调用）
+     */
+    public static void cancelAll() {
+        if (FOLIA) {
+            Bukkit.getGlobalRegionScheduler().cancelTasks(HeadDrop.getInstance());
+            Bukkit.getAsyncScheduler().cancelTasks(HeadDrop.getInstance());
+        } else {
+            Bukkit.getScheduler().cancelTasks(HeadDrop.getInstance());
+        }
+    }
+
+    /**
+     * 可取消的任务句柄
+     */
+    @FunctionalInterface
+    public interface Task {
+        void cancel();
+    }
+}
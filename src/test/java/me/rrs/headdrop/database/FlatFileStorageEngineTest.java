@@ -0,0 +1,102 @@
+package me.rrs.headdrop.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlatFileStorageEngineTest extends StorageEngineConformanceTest {
+
+    private static final UUID PLAYER = UUID.fromString("00000000-0000-0000-0000-000000000010");
+    private static final UUID OTHER = UUID.fromString("00000000-0000-0000-0000-000000000011");
+
+    @Override
+    protected StorageEngine createEngine(File directory) {
+        return new FlatFileStorageEngine(dataFile());
+    }
+
+    @Override
+    protected boolean supportsBuckets() {
+        return false;
+    }
+
+    private File dataFile() {
+        return new File(directory, "HeadDrop.dat");
+    }
+
+    @Test
+    void tornTailIsTruncated() throws Exception {
+        engine.incrementScores(List.of(new ScoreDelta(PLAYER, "Player", 4), new ScoreDelta(OTHER, "Other", 1)));
+        engine.incrementScore(PLAYER, "Player", 2);
+        engine.close();
+        long valid = dataFile().length();
+
+        // 崩溃时只写了长度和一部分记录
+        try (RandomAccessFile raf = new RandomAccessFile(dataFile(), "rw")) {
+            raf.seek(valid);
+            raf.writeInt(40);
+            raf.write(new byte[]{1, 2, 3, 4, 5});
+        }
+
+        reopen();
+        assertEquals(valid, dataFile().length());
+        assertEquals(6, score(PLAYER));
+        assertEquals(1, score(OTHER));
+
+        // 截断后的追加从最后一条完整记录之后开始
+        assertTrue(engine.incrementScore(OTHER, "Other", 1));
+        reopen();
+        assertEquals(2, score(OTHER));
+        assertEquals(6, score(PLAYER));
+    }
+
+    @Test
+    void corruptLastRecordIsDropped() throws Exception {
+        engine.incrementScore(PLAYER, "Player", 4);
+        engine.close();
+        long first = dataFile().length();
+        reopen();
+        engine.incrementScore(PLAYER, "Player", 3);
+        engine.close();
+
+        // 破坏第二条记录的积分字段，校验和不再匹配
+        flipByte(dataFile(), dataFile().length() - 14);
+
+        reopen();
+        assertEquals(first, dataFile().length());
+        assertEquals(4, score(PLAYER));
+        assertEquals(1, engine.getRank(PLAYER));
+    }
+
+    @Test
+    void oversizedLengthStopsReplay() throws Exception {
+        engine.incrementScore(PLAYER, "Player", 9);
+        engine.close();
+        long valid = dataFile().length();
+
+        try (RandomAccessFile raf = new RandomAccessFile(dataFile(), "rw")) {
+            raf.seek(valid);
+            raf.writeInt(Integer.MAX_VALUE);
+            raf.write(new byte[64]);
+        }
+
+        reopen();
+        assertEquals(valid, dataFile().length());
+        assertEquals(9, score(PLAYER));
+        assertEquals(1, engine.getPlayerCount());
+    }
+
+    private static void flipByte(File file, long position) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(position);
+            int value = raf.read();
+            raf.seek(position);
+            raf.write(value ^ 0xFF);
+        }
+    }
+}
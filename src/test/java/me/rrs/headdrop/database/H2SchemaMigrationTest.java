@@ -0,0 +1,37 @@
+package me.rrs.headdrop.database;
+
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+class H2SchemaMigrationTest extends SchemaMigrationTest {
+
+    @TempDir
+    File directory;
+
+    private File file() {
+        return new File(directory, "HeadDrop");
+    }
+
+    @Override
+    protected Connection connect() throws SQLException {
+        // 与 H2StorageEngine 使用相同的连接参数
+        return DriverManager.getConnection("jdbc:h2:file:" + file().getAbsolutePath()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;IGNORECASE=TRUE;DB_CLOSE_ON_EXIT=FALSE");
+    }
+
+    @Override
+    protected StorageEngine createEngine(boolean convertUuids) {
+        return new H2StorageEngine(file(), "", "", 2, convertUuids);
+    }
+
+    @Override
+    protected String baselineSchema() {
+        return "CREATE TABLE headdrop (name VARCHAR(16), uuid VARCHAR(36), data INT, "
+                + "last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP, "
+                + "PRIMARY KEY (name, uuid))";
+    }
+}
@@ -0,0 +1,16 @@
+package me.rrs.headdrop.database;
+
+import java.io.File;
+
+class H2StorageEngineTest extends StorageEngineConformanceTest {
+
+    @Override
+    protected StorageEngine createEngine(File directory) {
+        return new H2StorageEngine(new File(directory, "HeadDrop"), "", "", 2, false);
+    }
+
+    @Override
+    protected boolean supportsBuckets() {
+        return true;
+    }
+}
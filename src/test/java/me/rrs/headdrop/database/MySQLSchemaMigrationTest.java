@@ -0,0 +1,40 @@
+package me.rrs.headdrop.database;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Testcontainers(disabledWithoutDocker = true)
+class MySQLSchemaMigrationTest extends SchemaMigrationTest {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private String url;
+
+    @BeforeEach
+    void createDatabase() {
+        url = MySQLTestServer.createDatabase("headdrop_migration_" + DATABASES.incrementAndGet());
+    }
+
+    @Override
+    protected Connection connect() throws SQLException {
+        return DriverManager.getConnection(url, MySQLTestServer.username(), MySQLTestServer.password());
+    }
+
+    @Override
+    protected StorageEngine createEngine(boolean convertUuids) {
+        return new MySQLStorageEngine(url, MySQLTestServer.username(), MySQLTestServer.password(), 2, convertUuids);
+    }
+
+    @Override
+    protected String baselineSchema() {
+        // 旧版本插件在 MySQL 上的建表语句
+        return "CREATE TABLE headdrop (name VARCHAR(16), uuid VARCHAR(36), data INT, "
+                + "last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP, "
+                + "PRIMARY KEY (name, uuid))";
+    }
+}
@@ -0,0 +1,22 @@
+package me.rrs.headdrop.database;
+
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.File;
+
+@Testcontainers(disabledWithoutDocker = true)
+class MySQLStorageEngineTest extends StorageEngineConformanceTest {
+
+    @Override
+    protected StorageEngine createEngine(File directory) {
+        // 临时目录每个测试不同，重新打开时不变，用它区分各个测试的数据库
+        String database = "headdrop_" + Integer.toHexString(directory.getAbsolutePath().hashCode());
+        return new MySQLStorageEngine(MySQLTestServer.createDatabase(database),
+                MySQLTestServer.username(), MySQLTestServer.password(), 2, false);
+    }
+
+    @Override
+    protected boolean supportsBuckets() {
+        return true;
+    }
+}
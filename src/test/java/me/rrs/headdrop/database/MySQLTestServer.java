@@ -0,0 +1,61 @@
+package me.rrs.headdrop.database;
+
+import org.testcontainers.containers.MySQLContainer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * MySQL 测试使用的服务器
+ * 所有 MySQL 测试共用一个容器，在第一次使用时启动，由 Testcontainers 在 JVM 退出时清理；
+ * 每个测试使用自己的数据库，互不影响。没有 Docker 的环境中这些测试会被跳过。
+ */
+final class MySQLTestServer {
+
+    private static final String IMAGE = System.getProperty("headdrop.test.mysql.image", "mysql:8.0");
+    private static final String PASSWORD = "headdrop";
+
+    private static MySQLContainer<?> container;
+
+    private MySQLTestServer() {
+    }
+
+    private static synchronized MySQLContainer<?> container() {
+        if (container == null) {
+            MySQLContainer<?> created = new MySQLContainer<>(IMAGE)
+                    .withUsername("root")
+                    .withPassword(PASSWORD);
+            created.start();
+            container = created;
+        }
+        return container;
+    }
+
+    /**
+     * 创建数据库（已存在时直接使用）
+     *
+     * @param name 数据库名
+     * @return 指向该数据库的 JDBC 地址
+     */
+    static String createDatabase(String name) {
+        MySQLContainer<?> server = container();
+        try (Connection connection = DriverManager.getConnection(server.getJdbcUrl(), username(), password());
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE DATABASE IF NOT EXISTS `" + name + "`");
+        } catch (SQLException e) {
+            throw new IllegalStateException("无法创建测试数据库 " + name, e);
+        }
+        return "jdbc:mysql://" + server.getHost() + ":" + server.getMappedPort(MySQLContainer.MYSQL_PORT) + "/" + name
+                + "?useSSL=false&allowPublicKeyRetrieval=true";
+    }
+
+    static String username() {
+        return "root";
+    }
+
+    static String password() {
+        return PASSWORD;
+    }
+}
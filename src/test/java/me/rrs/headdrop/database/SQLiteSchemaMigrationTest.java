@@ -0,0 +1,34 @@
+package me.rrs.headdrop.database;
+
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+class SQLiteSchemaMigrationTest extends SchemaMigrationTest {
+
+    @TempDir
+    File directory;
+
+    private File file() {
+        return new File(directory, "HeadDrop.sqlite");
+    }
+
+    @Override
+    protected Connection connect() throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + file().getAbsolutePath());
+    }
+
+    @Override
+    protected StorageEngine createEngine(boolean convertUuids) {
+        return new SQLiteStorageEngine(file(), 2, convertUuids);
+    }
+
+    @Override
+    protected String baselineSchema() {
+        // 早期版本没有 last_updated 列
+        return "CREATE TABLE headdrop (name TEXT, uuid TEXT, data INTEGER, PRIMARY KEY (name, uuid))";
+    }
+}
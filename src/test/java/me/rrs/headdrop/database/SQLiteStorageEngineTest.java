@@ -0,0 +1,16 @@
+package me.rrs.headdrop.database;
+
+import java.io.File;
+
+class SQLiteStorageEngineTest extends StorageEngineConformanceTest {
+
+    @Override
+    protected StorageEngine createEngine(File directory) {
+        return new SQLiteStorageEngine(new File(directory, "HeadDrop.sqlite"), 2, false);
+    }
+
+    @Override
+    protected boolean supportsBuckets() {
+        return true;
+    }
+}
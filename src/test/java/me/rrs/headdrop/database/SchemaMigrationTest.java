@@ -0,0 +1,165 @@
+package me.rrs.headdrop.database;
+
+import org.bukkit.Bukkit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 在旧版本插件创建的表（文本UUID、主键为 (name, uuid)）上执行全部迁移和二进制UUID转换
+ * 每个引擎一个子类，负责提供直连的 JDBC 连接和打开引擎。
+ */
+abstract class SchemaMigrationTest {
+
+    private static final UUID ALICE = UUID.fromString("6f0c3a4e-2d51-4a8b-9a1e-0c5f2b7d9e31");
+    private static final UUID BOB = UUID.fromString("1b2c3d4e-5f60-4718-8293-a4b5c6d7e8f9");
+
+    private MockedStatic<Bukkit> bukkit;
+    private StorageEngine engine;
+
+    /**
+     * 打开一个直连的 JDBC 连接（不经过连接池和迁移）
+     */
+    protected abstract Connection connect() throws SQLException;
+
+    /**
+     * 创建尚未打开的引擎
+     *
+     * @param convertUuids 是否把文本UUID转换为二进制
+     */
+    protected abstract StorageEngine createEngine(boolean convertUuids);
+
+    /**
+     * 旧版本插件的建表语句
+     */
+    protected abstract String baselineSchema();
+
+    @BeforeEach
+    void mockLogger() {
+        bukkit = Mockito.mockStatic(Bukkit.class);
+        bukkit.when(Bukkit::getLogger).thenReturn(Logger.getLogger("HeadDrop"));
+    }
+
+    @AfterEach
+    void closeEngine() {
+        if (engine != null) {
+            engine.close();
+        }
+        bukkit.close();
+    }
+
+    private void createBaseline() throws SQLException {
+        try (Connection connection = connect();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate(baselineSchema());
+            // 改名留下的重复UUID，迁移只保留积分最高的一行
+            insert(connection, "Alice", ALICE.toString(), 12);
+            insert(connection, "AliceOld", ALICE.toString(), 5);
+            insert(connection, "Bob", BOB.toString(), 7);
+            insert(connection, "Broken", "not-a-uuid", 30);
+            insert(connection, "Empty", "", 4);
+        }
+    }
+
+    private static void insert(Connection connection, String name, String uuid, int data) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO headdrop (name, uuid, data) VALUES (?, ?, ?)")) {
+            statement.setString(1, name);
+            statement.setString(2, uuid);
+            statement.setInt(3, data);
+            statement.executeUpdate();
+        }
+    }
+
+    private StorageEngine open(boolean convertUuids) throws Exception {
+        engine = createEngine(convertUuids);
+        engine.open();
+        return engine;
+    }
+
+    private void closeCurrent() {
+        engine.close();
+        engine = null;
+    }
+
+    @Test
+    void upgradesBaselineWithTextUuids() throws Exception {
+        createBaseline();
+        StorageEngine opened = open(false);
+
+        assertEquals(12, opened.getScore(ALICE).orElseThrow());
+        assertEquals(7, opened.getScoreByName("bob").orElseThrow());
+        assertTrue(opened.incrementScore(ALICE, "Alice", 3));
+        assertEquals(15, opened.getScore(ALICE).orElseThrow());
+        closeCurrent();
+
+        try (Connection connection = connect()) {
+            assertFalse(SchemaMigrator.isBinaryUuid(connection));
+            assertEquals(7, count(connection, "SELECT MAX(version) FROM schema_version"));
+        }
+    }
+
+    @Test
+    void binaryConversionQuarantinesInvalidRows() throws Exception {
+        createBaseline();
+        StorageEngine opened = open(true);
+
+        assertEquals(12, opened.getScore(ALICE).orElseThrow());
+        assertEquals(7, opened.getScore(BOB).orElseThrow());
+        assertEquals(2, opened.getPlayerCount());
+        assertTrue(opened.incrementScore(BOB, "Bob", 1));
+        assertEquals(8, opened.getScore(BOB).orElseThrow());
+        closeCurrent();
+
+        try (Connection connection = connect()) {
+            assertTrue(SchemaMigrator.isBinaryUuid(connection));
+
+            // 无效的行连同积分保留在隔离表中，没有被删除
+            Map<String, Integer> quarantined = new HashMap<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT name, data FROM headdrop_invalid_uuid")) {
+                while (rs.next()) {
+                    quarantined.put(rs.getString("name"), rs.getInt("data"));
+                }
+            }
+            assertEquals(Map.of("Broken", 30, "Empty", 4), quarantined);
+        }
+    }
+
+    @Test
+    void conversionIsIdempotentOnRestart() throws Exception {
+        createBaseline();
+        open(true);
+        closeCurrent();
+
+        StorageEngine reopened = open(true);
+        assertEquals(12, reopened.getScore(ALICE).orElseThrow());
+        assertEquals(2, reopened.getPlayerCount());
+        closeCurrent();
+
+        try (Connection connection = connect()) {
+            assertEquals(2, count(connection, "SELECT COUNT(*) FROM headdrop_invalid_uuid"));
+        }
+    }
+
+    private static int count(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package me.rrs.headdrop.database;
+
+import org.bukkit.Bukkit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 所有存储引擎共用的行为测试
+ * 每个引擎一个子类，只负责在临时目录中创建引擎；不支持时间窗口的引擎必须丢弃写入并返回空结果。
+ */
+abstract class StorageEngineConformanceTest {
+
+    private static final UUID ALICE = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID BOB = UUID.fromString("00000000-0000-0000-0000-000000000002");
+    private static final UUID CAROL = UUID.fromString("00000000-0000-0000-0000-000000000003");
+
+    @TempDir
+    File directory;
+
+    private MockedStatic<Bukkit> bukkit;
+    protected StorageEngine engine;
+
+    /**
+     * 在目录中创建尚未打开的引擎
+     *
+     * @param directory 临时目录
+     * @return 引擎
+     */
+    protected abstract StorageEngine createEngine(File directory);
+
+    /**
+     * 引擎是否支持时间窗口排行榜
+     */
+    protected abstract boolean supportsBuckets();
+
+    @BeforeEach
+    void openEngine() throws Exception {
+        // 引擎只通过 Bukkit.getLogger() 输出日志，测试中不需要完整的服务器
+        bukkit = Mockito.mockStatic(Bukkit.class);
+        bukkit.when(Bukkit::getLogger).thenReturn(Logger.getLogger("HeadDrop"));
+        engine = open();
+    }
+
+    @AfterEach
+    void closeEngine() {
+        engine.close();
+        bukkit.close();
+    }
+
+    /**
+     * 关闭当前引擎并重新打开同一份数据
+     */
+    protected void reopen() throws Exception {
+        engine.close();
+        engine = open();
+    }
+
+    private StorageEngine open() throws Exception {
+        StorageEngine created = createEngine(directory);
+        created.open();
+        return created;
+    }
+
+    // region 积分
+
+    @Test
+    void incrementInsertsAndAccumulates() {
+        assertEquals(0, score(ALICE));
+        assertTrue(engine.incrementScore(ALICE, "Alice", 3));
+        assertTrue(engine.incrementScore(ALICE, "Alice", 4));
+
+        assertEquals(7, score(ALICE));
+        assertEquals(7, engine.getScoreByName("alice").getAsInt());
+        assertEquals(1, engine.getPlayerCount());
+    }
+
+    @Test
+    void batchAppliesEveryDelta() throws Exception {
+        engine.incrementScore(ALICE, "Alice", 1);
+        assertTrue(engine.incrementScores(List.of(
+                new ScoreDelta(ALICE, "Alice", 5),
+                new ScoreDelta(BOB, "Bob", 2),
+                new ScoreDelta(CAROL, "Carol", -1))));
+        assertTrue(engine.incrementScores(List.of()));
+
+        reopen();
+        assertEquals(6, score(ALICE));
+        assertEquals(2, score(BOB));
+        assertEquals(-1, score(CAROL));
+        assertEquals(3, engine.getPlayerCount());
+    }
+
+    @Test
+    void setByNameOverwritesExistingPlayer() {
+        engine.incrementScore(ALICE, "Alice", 10);
+        assertTrue(engine.setScoreByName(BOB, "ALICE", 4));
+
+        assertEquals(4, score(ALICE));
+        assertEquals(0, score(BOB));
+
+        assertTrue(engine.setScoreByName(BOB, "Bob", 2));
+        assertEquals(2, score(BOB));
+        assertEquals(2, engine.getPlayerCount());
+    }
+
+    @Test
+    void throughputKeepsTotals() {
+        int players = 50;
+        int batches = 200;
+        List<UUID> uuids = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            uuids.add(new UUID(1L, i));
+        }
+
+        // 10000 个增量，按写回批次提交，每批每个玩家一条
+        assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+            for (int batch = 0; batch < batches; batch++) {
+                List<ScoreDelta> deltas = new ArrayList<>(players);
+                for (int i = 0; i < players; i++) {
+                    deltas.add(new ScoreDelta(uuids.get(i), "Player" + i, i % 3 + 1));
+                }
+                assertTrue(engine.incrementScores(deltas));
+            }
+        });
+
+        long total = 0;
+        for (int i = 0; i < players; i++) {
+            int expected = batches * (i % 3 + 1);
+            assertEquals(expected, score(uuids.get(i)));
+            total += expected;
+        }
+        assertEquals(players, engine.getPlayerCount());
+        assertEquals(total, sumTop(players));
+    }
+
+    // endregion
+
+    // region 排名
+
+    @Test
+    void topIsOrderedAndPaged() {
+        engine.incrementScores(List.of(
+                new ScoreDelta(ALICE, "Alice", 5),
+                new ScoreDelta(BOB, "Bob", 9),
+                new ScoreDelta(CAROL, "Carol", 1)));
+
+        List<LeaderboardEntry> top = engine.getTop(10, 0);
+        assertEquals(List.of(
+                new LeaderboardEntry("Bob", 9),
+                new LeaderboardEntry("Alice", 5),
+                new LeaderboardEntry("Carol", 1)), top);
+        assertEquals(List.of(new LeaderboardEntry("Alice", 5)), engine.getTop(1, 1));
+        assertTrue(engine.getTop(10, 3).isEmpty());
+    }
+
+    @Test
+    void tiesShareRank() {
+        engine.incrementScores(List.of(
+                new ScoreDelta(ALICE, "Alice", 5),
+                new ScoreDelta(BOB, "Bob", 5),
+                new ScoreDelta(CAROL, "Carol", 2)));
+
+        assertEquals(1, engine.getRank(ALICE));
+        assertEquals(1, engine.getRank(BOB));
+        assertEquals(3, engine.getRank(CAROL));
+        assertEquals(0, engine.getRank(UUID.randomUUID()));
+
+        engine.incrementScore(CAROL, "Carol", 4);
+        assertEquals(1, engine.getRank(CAROL));
+        assertEquals(2, engine.getRank(ALICE));
+    }
+
+    // endregion
+
+    // region 保留
+
+    @Test
+    void archiveAndRestore() throws Exception {
+        engine.incrementScore(ALICE, "Alice", 8);
+        waitPastTimestampResolution();
+
+        assertEquals(List.of(ALICE), engine.archiveInactive(0, 100));
+        assertEquals(0, score(ALICE));
+        assertEquals(0, engine.getPlayerCount());
+        assertTrue(engine.getTop(10, 0).isEmpty());
+
+        reopen();
+        assertTrue(engine.restoreArchived(ALICE));
+        assertEquals(8, score(ALICE));
+        assertEquals(1, engine.getRank(ALICE));
+        assertFalse(engine.restoreArchived(ALICE));
+        assertFalse(engine.restoreArchived(BOB));
+    }
+
+    @Test
+    void restoreMergesIntoNewLiveRow() throws Exception {
+        engine.incrementScore(ALICE, "Alice", 8);
+        waitPastTimestampResolution();
+        assertEquals(List.of(ALICE), engine.archiveInactive(0, 100));
+
+        // 归档后玩家又获得了积分，恢复时两部分都要保留
+        engine.incrementScore(ALICE, "Alice", 3);
+        assertTrue(engine.restoreArchived(ALICE));
+        assertEquals(11, score(ALICE));
+        assertEquals(1, engine.getPlayerCount());
+
+        reopen();
+        assertEquals(11, score(ALICE));
+        assertFalse(engine.restoreArchived(ALICE));
+    }
+
+    @Test
+    void rearchiveAccumulatesBeforeRestore() throws Exception {
+        engine.incrementScore(ALICE, "Alice", 8);
+        waitPastTimestampResolution();
+        assertEquals(List.of(ALICE), engine.archiveInactive(0, 100));
+
+        // 恢复之前再次被归档，两次归档的积分都要保留
+        engine.incrementScore(ALICE, "Alice", 5);
+        waitPastTimestampResolution();
+        assertEquals(List.of(ALICE), engine.archiveInactive(0, 100));
+        assertEquals(0, engine.getPlayerCount());
+
+        reopen();
+        assertTrue(engine.restoreArchived(ALICE));
+        assertEquals(13, score(ALICE));
+    }
+
+    @Test
+    void archiveSkipsActivePlayersAndHonoursLimit() throws Exception {
+        engine.incrementScores(List.of(
+                new ScoreDelta(ALICE, "Alice", 1),
+                new ScoreDelta(BOB, "Bob", 2),
+                new ScoreDelta(CAROL, "Carol", 3)));
+        waitPastTimestampResolution();
+
+        assertTrue(engine.archiveInactive(30, 100).isEmpty());
+        assertEquals(3, engine.getPlayerCount());
+
+        List<UUID> archived = engine.archiveInactive(0, 1);
+        assertEquals(1, archived.size());
+        assertEquals(2, engine.getPlayerCount());
+        assertEquals(0, score(archived.get(0)));
+    }
+
+    // endregion
+
+    // region 时间窗口
+
+    @Test
+    void bucketsAccumulatePerWindow() {
+        LocalDate monday = LocalDate.of(2026, 10, 12);
+        LocalDate tuesday = monday.plusDays(1);
+        List<ScoreDelta> first = List.of(new ScoreDelta(ALICE, "Alice", 2), new ScoreDelta(BOB, "Bob", 5));
+        List<ScoreDelta> second = List.of(new ScoreDelta(ALICE, "Alice", 4));
+
+        assertTrue(engine.addToBuckets(first, monday));
+        assertTrue(engine.addToBuckets(second, tuesday));
+
+        if (!supportsBuckets()) {
+            for (TimeWindow window : TimeWindow.values()) {
+                assertTrue(engine.getWindowTop(window, tuesday, 10, 0).isEmpty());
+                assertEquals(0, engine.pruneBuckets(window, Long.MAX_VALUE));
+            }
+            return;
+        }
+
+        assertEquals(List.of(new LeaderboardEntry("Bob", 5), new LeaderboardEntry("Alice", 2)),
+                engine.getWindowTop(TimeWindow.DAY, monday, 10, 0));
+        assertEquals(List.of(new LeaderboardEntry("Alice", 4)),
+                engine.getWindowTop(TimeWindow.DAY, tuesday, 10, 0));
+        assertEquals(List.of(new LeaderboardEntry("Alice", 6), new LeaderboardEntry("Bob", 5)),
+                engine.getWindowTop(TimeWindow.WEEK, tuesday, 10, 0));
+        assertEquals(List.of(new LeaderboardEntry("Bob", 5)),
+                engine.getWindowTop(TimeWindow.MONTH, monday, 1, 1));
+    }
+
+    @Test
+    void pruneRemovesOlderBuckets() {
+        LocalDate today = LocalDate.of(2026, 10, 17);
+        engine.addToBuckets(List.of(new ScoreDelta(ALICE, "Alice", 1)), today.minusDays(3));
+        engine.addToBuckets(List.of(new ScoreDelta(ALICE, "Alice", 1)), today);
+
+        if (!supportsBuckets()) {
+            assertEquals(0, engine.pruneBuckets(TimeWindow.DAY, TimeWindow.DAY.bucketStart(today)));
+            return;
+        }
+
+        assertEquals(1, engine.pruneBuckets(TimeWindow.DAY, TimeWindow.DAY.bucketStart(today)));
+        assertTrue(engine.getWindowTop(TimeWindow.DAY, today.minusDays(3), 10, 0).isEmpty());
+        assertEquals(List.of(new LeaderboardEntry("Alice", 1)), engine.getWindowTop(TimeWindow.DAY, today, 10, 0));
+        assertEquals(List.of(new LeaderboardEntry("Alice", 2)), engine.getWindowTop(TimeWindow.MONTH, today, 10, 0));
+    }
+
+    // endregion
+
+    /**
+     * 读取积分，读取失败时测试失败
+     */
+    protected int score(UUID uuid) {
+        return engine.getScore(uuid).orElseThrow();
+    }
+
+    private long sumTop(int limit) {
+        long sum = 0;
+        for (LeaderboardEntry entry : engine.getTop(limit, 0)) {
+            sum += entry.score();
+        }
+        return sum;
+    }
+
+    /**
+     * SQLite 的时间只精确到秒，等待一秒多保证之前写入的记录早于当前时间
+     */
+    private static void waitPastTimestampResolution() throws InterruptedException {
+        Thread.sleep(1100L);
+    }
+}